@@ -0,0 +1,98 @@
+package examples;
+
+import polynomial_curve_fitting.StreamingPCF;
+import set.TrainingSet;
+import set.TrainingSetLoader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Benchmark of TrainingSetLoader, reports parse throughput of a generated CSV file.
+ * Compares the loader with BufferedReader, String.split and Double.parseDouble,
+ * and measures loading pipelined with StreamingPCF on a second thread.
+ * First argument is the number of lines, 10 000 000 by default.
+ */
+public class Benchmark_TrainingSetLoader {
+
+    private static final int DEFAULT_LINES = 10_000_000;
+    private static final int REPETITIONS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+
+        Path file = Files.createTempFile("training-set", ".csv");
+        try {
+            writeCsv(file, lines);
+            double megabytes = Files.size(file) / 1e6;
+            System.out.printf("%d lines, %.1f MB%n", lines, megabytes);
+
+            TrainingSetLoader loader = new TrainingSetLoader(1, 2).skipLines(1);
+
+            for (int r = 0; r < REPETITIONS; ++r) {
+                long start = System.nanoTime();
+                TrainingSet set = loader.load(file);
+                report("TrainingSetLoader", start, megabytes, set.size());
+
+                start = System.nanoTime();
+                int count = loadWithReader(file);
+                report("BufferedReader + parseDouble", start, megabytes, count);
+
+                ExecutorService executor = Executors.newSingleThreadExecutor();
+                try {
+                    StreamingPCF fitting = new StreamingPCF();
+                    start = System.nanoTime();
+                    long loaded = loader.load(file, fitting::accept, executor);
+                    report("TrainingSetLoader + StreamingPCF", start, megabytes, loaded);
+                } finally {
+                    executor.shutdown();
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Writes CSV with header and columns id, x, t.
+     */
+    private static void writeCsv(Path file, int lines) throws IOException {
+        SplittableRandom random = new SplittableRandom(1);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("id,x,t\n");
+            for (int n = 0; n < lines; ++n) {
+                double x = random.nextDouble(-100, 100);
+                writer.write(n + "," + x + "," + Math.sin(x) + "\n");
+            }
+        }
+    }
+
+    private static int loadWithReader(Path file) throws IOException {
+        int count = 0;
+        double sum = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(",");
+                sum += Double.parseDouble(columns[1]) + Double.parseDouble(columns[2]);
+                ++count;
+            }
+        }
+        return sum == 0 ? count : count; // keeps parsed values alive
+    }
+
+    private static void report(String name, long start, double megabytes, long lines) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-36s %6.2f s %8.1f MB/s %6.1f M lines/s%n",
+                name, seconds, megabytes / seconds, lines / seconds / 1e6);
+    }
+}
@@ -21,6 +21,7 @@ public class Example_LeastSquaresPCF {
     private static final double DOMAIN_MIN = -100;
     private static final double DOMAIN_MAX = 100;
     private static final int DOMAIN_DENSITY = 10000;
+    private static final int PLOT_POINTS = 2000; // points of a plotted trace
 
     public static void main(String[] args) {
 
@@ -43,6 +44,6 @@ public class Example_LeastSquaresPCF {
 
         // plot figure
         Figure fig = new Figure(new Layout("Polynomial Curve Fitting " + function.name())).add(traceSin).add(tracePol);
-        new Plotter().plot(new Plot(fig, "pcf-" + function.name()).autoOpen(true));
+        new Plotter().plot(new Plot(fig, "pcf-" + function.name()).maxPoints(PLOT_POINTS).autoOpen(true));
     }
 }
@@ -0,0 +1,110 @@
+package functions;
+
+/**
+ * Polynomial expressed in Chebyshev basis over domain [min, max]
+ * chebyshev(x) = sum(c[k] * T[k](u)) from k=0 to M,
+ * where u = (2*x - (max + min)) / (max - min) maps the domain to [-1, 1]
+ * and T[k] are Chebyshev polynomials T[0](u) = 1, T[1](u) = u, T[k+1](u) = 2*u*T[k](u) - T[k-1](u).
+ *
+ * Evaluation uses Clenshaw recurrence, which is numerically stable even for high degrees,
+ * while the monomial form returned by toPolynomial() may lose precision.
+ */
+public class ChebyshevSeries extends Function {
+
+    private final double[] c; // coefficients c[k], k = 0..M
+    private final double min, max; // domain
+    private final int degree;
+
+    public ChebyshevSeries(double[] coefficients, double domainMin, double domainMax) {
+        if (domainMin >= domainMax) throw new IllegalArgumentException("Domain's min can't be greater than domain's max");
+
+        this.c = coefficients;
+        this.min = domainMin;
+        this.max = domainMax;
+        this.degree = coefficients.length - 1;
+    }
+
+    /**
+     * Maps x from domain [min, max] to [-1, 1].
+     */
+    public double scale(double x) {
+        return (2 * x - (max + min)) / (max - min);
+    }
+
+    @Override
+    public double f(double x) {
+        double u = scale(x);
+        double b1 = 0, b2 = 0;
+
+        for (int k = degree; k > 0; --k) {
+            double b = c[k] + 2 * u * b1 - b2;
+            b2 = b1;
+            b1 = b;
+        }
+        return c[0] + u * b1 - b2;
+    }
+
+    /**
+     * Converts polynomial to monomial form sum(w[i] * x^i) from i=0 to M.
+     * @return Polynomial the polynomial
+     */
+    public Polynomial toPolynomial() {
+        // monomial coefficients in u, accumulated from T[k](u)
+        double[] d = new double[degree + 1];
+        double[] tPrev = new double[degree + 1], t = new double[degree + 1];
+        t[0] = 1;
+        d[0] = c[0];
+
+        for (int k = 1; k <= degree; ++k) {
+            double[] tNext = new double[degree + 1];
+            for (int m = 0; m <= k; ++m)
+                tNext[m] = (k == 1 ? 1 : 2) * (m > 0 ? t[m - 1] : 0) - tPrev[m];
+            tPrev = t;
+            t = tNext;
+
+            for (int m = 0; m <= k; ++m)
+                d[m] += c[k] * t[m];
+        }
+
+        // substitute u = a*x + b with Horner scheme
+        double a = 2 / (max - min), b = -(max + min) / (max - min);
+        double[] w = new double[degree + 1];
+        w[0] = d[degree];
+
+        for (int k = degree - 1; k >= 0; --k) {
+            for (int m = degree - k; m > 0; --m)
+                w[m] = w[m] * b + w[m - 1] * a;
+            w[0] = w[0] * b + d[k];
+        }
+        return new Polynomial(w);
+    }
+
+    /**
+     * Getter for degree.
+     * @return int the degree.
+     */
+    public int degree() {
+        return degree;
+    }
+
+    public double domainMin() {
+        return min;
+    }
+
+    public double domainMax() {
+        return max;
+    }
+
+    /**
+     * Getter for Chebyshev coefficients
+     * @return double[] the coefficients.
+     */
+    public double[] coefficients() {
+        return c;
+    }
+
+    @Override
+    public String name() {
+        return "chebyshev";
+    }
+}
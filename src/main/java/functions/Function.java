@@ -1,11 +1,19 @@
 package functions;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Function of one variable.
+ *
+ * Bulk evaluation goes through f(double[], int, int, double[]), subclasses can override it with tighter loops
+ * and all other bulk methods, including the parallel ones, use the override.
  * @author Ondrej Kratochvil
  */
 public abstract class Function {
 
+    static final int PARALLEL_THRESHOLD = 1 << 16; // min number of arguments evaluated by one task
+
     /**
      * Computes function value for f(x).
      * @param x the argument
@@ -20,12 +28,111 @@ public abstract class Function {
      */
     public double[] f(double[] x) {
         double[] result = new double[x.length];
-        for (int i = 0; i < x.length; ++i)
+        f(x, 0, x.length, result);
+        return result;
+    }
+
+    /**
+     * Computes function values for whole array of arguments without allocation.
+     * @param x the double[] for arguments
+     * @param result the double[] for the function values, at least x.length long
+     */
+    public void f(double[] x, double[] result) {
+        f(x, 0, x.length, result);
+    }
+
+    /**
+     * Computes function values result[i] = f(x[i]) for i = offset..offset+length-1 without allocation.
+     * @param x the double[] for arguments
+     * @param offset the int index of the first argument
+     * @param length the int number of arguments
+     * @param result the double[] for the function values, may be the same array as x
+     */
+    public void f(double[] x, int offset, int length, double[] result) {
+        for (int i = offset; i < offset + length; ++i)
             result[i] = f(x[i]);
+    }
 
+    /**
+     * Computes function values for whole array of arguments in parallel, see parallelF(double[], int, int, double[]).
+     * @param x the double[] for arguments
+     * @return double[] the function values
+     */
+    public double[] parallelF(double[] x) {
+        double[] result = new double[x.length];
+        parallelF(x, 0, x.length, result);
         return result;
     }
 
+    /**
+     * Computes function values for whole array of arguments in parallel without allocation,
+     * see parallelF(double[], int, int, double[]).
+     * @param x the double[] for arguments
+     * @param result the double[] for the function values, at least x.length long
+     */
+    public void parallelF(double[] x, double[] result) {
+        parallelF(x, 0, x.length, result);
+    }
+
+    /**
+     * Computes function values result[i] = f(x[i]) for i = offset..offset+length-1 in common ForkJoinPool.
+     * The range is split into halves until they are shorter than PARALLEL_THRESHOLD,
+     * smaller ranges are evaluated in the calling thread.
+     * Function has to be thread-safe, e.g. Func of CustomFunction can't have a state.
+     * @param x the double[] for arguments
+     * @param offset the int index of the first argument
+     * @param length the int number of arguments
+     * @param result the double[] for the function values, may be the same array as x
+     */
+    public void parallelF(double[] x, int offset, int length, double[] result) {
+        parallelF(x, offset, length, result, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes function values result[i] = f(x[i]) for i = offset..offset+length-1 in given ForkJoinPool.
+     * @see #parallelF(double[], int, int, double[])
+     * @param pool the ForkJoinPool
+     */
+    public void parallelF(double[] x, int offset, int length, double[] result, ForkJoinPool pool) {
+        if (offset < 0 || length < 0 || offset + length > x.length || offset + length > result.length)
+            throw new IndexOutOfBoundsException("Range " + offset + ".." + (offset + length) + " is out of bounds.");
+
+        if (length < 2 * PARALLEL_THRESHOLD) f(x, offset, length, result);
+        else pool.invoke(new Evaluation(this, x, offset, length, result));
+    }
+
+    /**
+     * Task evaluating a range of arguments, splits itself into halves above PARALLEL_THRESHOLD.
+     */
+    private static class Evaluation extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Function function;
+        private final double[] x, result;
+        private final int offset, length;
+
+        private Evaluation(Function function, double[] x, int offset, int length, double[] result) {
+            this.function = function;
+            this.x = x;
+            this.offset = offset;
+            this.length = length;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            if (length < 2 * PARALLEL_THRESHOLD) {
+                function.f(x, offset, length, result);
+                return;
+            }
+
+            int half = length / 2;
+            invokeAll(new Evaluation(function, x, offset, half, result),
+                    new Evaluation(function, x, offset + half, length - half, result));
+        }
+    }
+
     /**
      * Getter for function name.
      */
@@ -0,0 +1,78 @@
+package functions;
+
+/**
+ * Polynomial expressed in basis of orthonormal polynomials given by three-term recurrence
+ * q[0](x) = q0,
+ * q[k+1](x) = ((x - alpha[k]) * q[k](x) - beta[k] * q[k-1](x)) / beta[k+1],
+ * polynomial(x) = sum(c[k] * q[k](x)) from k=0 to M
+ *
+ * Evaluation follows the recurrence, which is numerically stable even for high degrees,
+ * while the monomial form returned by toPolynomial() may lose precision.
+ */
+public class OrthogonalPolynomial extends Function {
+
+    private final double q0;
+    private final double[] alpha; // alpha[k], k = 0..M-1
+    private final double[] beta; // beta[k], k = 0..M, beta[0] is not used
+    private final double[] c; // coefficients c[k], k = 0..M
+    private final int degree;
+
+    public OrthogonalPolynomial(double q0, double[] alpha, double[] beta, double[] c) {
+        if (alpha.length < c.length - 1 || beta.length < c.length)
+            throw new IllegalArgumentException("Recurrence coefficients don't cover the polynomial degree.");
+
+        this.q0 = q0;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.c = c;
+        this.degree = c.length - 1;
+    }
+
+    @Override
+    public double f(double x) {
+        double qPrev = 0, q = q0;
+        double result = c[0] * q;
+
+        for (int k = 0; k < degree; ++k) {
+            double qNext = ((x - alpha[k]) * q - beta[k] * qPrev) / beta[k + 1];
+            qPrev = q;
+            q = qNext;
+            result += c[k + 1] * q;
+        }
+        return result;
+    }
+
+    /**
+     * Converts polynomial to monomial form sum(w[i] * x^i) from i=0 to M.
+     * @return Polynomial the polynomial
+     */
+    public Polynomial toPolynomial() {
+        double[] w = new double[degree + 1];
+        double[] qPrev = new double[degree + 1], q = new double[degree + 1];
+        q[0] = q0;
+        w[0] = c[0] * q0;
+
+        for (int k = 0; k < degree; ++k) {
+            for (int m = k + 1; m >= 0; --m) {
+                double qNext = ((m > 0 ? q[m - 1] : 0) - alpha[k] * q[m] - beta[k] * qPrev[m]) / beta[k + 1];
+                qPrev[m] = q[m];
+                q[m] = qNext;
+                w[m] += c[k + 1] * qNext;
+            }
+        }
+        return new Polynomial(w);
+    }
+
+    /**
+     * Getter for degree.
+     * @return int the degree.
+     */
+    public int degree() {
+        return degree;
+    }
+
+    @Override
+    public String name() {
+        return "polynomial";
+    }
+}
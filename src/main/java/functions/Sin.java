@@ -22,6 +22,14 @@ public class Sin extends Function {
         return a * Math.sin(b * x) + c;
     }
 
+    @Override
+    public void f(double[] x, int offset, int length, double[] result) {
+        double a = this.a, b = this.b, c = this.c;
+
+        for (int i = offset; i < offset + length; ++i)
+            result[i] = a * Math.sin(b * x[i]) + c;
+    }
+
     @Override
     public String name() {
         return "sin";
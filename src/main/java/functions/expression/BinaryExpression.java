@@ -0,0 +1,147 @@
+package functions.expression;
+
+/**
+ * Binary arithmetic operation or power of two expressions.
+ */
+final class BinaryExpression extends Expression {
+
+    enum Operator {
+        ADD("+", ExpressionCompiler.DADD) {
+            @Override
+            double apply(double u, double v) {
+                return u + v;
+            }
+        },
+        SUBTRACT("-", ExpressionCompiler.DSUB) {
+            @Override
+            double apply(double u, double v) {
+                return u - v;
+            }
+        },
+        MULTIPLY("*", ExpressionCompiler.DMUL) {
+            @Override
+            double apply(double u, double v) {
+                return u * v;
+            }
+        },
+        DIVIDE("/", ExpressionCompiler.DDIV) {
+            @Override
+            double apply(double u, double v) {
+                return u / v;
+            }
+        },
+        POWER("^", -1) {
+            @Override
+            double apply(double u, double v) {
+                return Math.pow(u, v);
+            }
+        };
+
+        private final String symbol;
+        private final int opcode; // -1 for Math.pow
+
+        Operator(String symbol, int opcode) {
+            this.symbol = symbol;
+            this.opcode = opcode;
+        }
+
+        abstract double apply(double u, double v);
+    }
+
+    private final Operator operator;
+    private final Expression left, right;
+
+    BinaryExpression(Operator operator, Expression left, Expression right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public double f(double x) {
+        return operator.apply(left.f(x), right.f(x));
+    }
+
+    @Override
+    public Expression simplify() {
+        Expression u = left.simplify();
+        Expression v = right.simplify();
+
+        if (u instanceof Constant && v instanceof Constant)
+            return new Constant(operator.apply(((Constant) u).value, ((Constant) v).value));
+
+        switch (operator) {
+            case ADD:
+                if (u.is(0)) return v;
+                if (v.is(0)) return u;
+                break;
+            case SUBTRACT:
+                if (v.is(0)) return u;
+                if (u.is(0)) return v.negate().simplify();
+                break;
+            case MULTIPLY:
+                if (u.is(0) || v.is(0)) return Constant.ZERO;
+                if (u.is(1)) return v;
+                if (v.is(1)) return u;
+                if (u.is(-1)) return v.negate().simplify();
+                if (v.is(-1)) return u.negate().simplify();
+                break;
+            case DIVIDE:
+                if (u.is(0)) return Constant.ZERO;
+                if (v.is(1)) return u;
+                break;
+            case POWER:
+                if (v.is(0) || u.is(1)) return Constant.ONE;
+                if (v.is(1)) return u;
+                break;
+        }
+        return new BinaryExpression(operator, u, v);
+    }
+
+    @Override
+    Expression differentiate() {
+        Expression du = left.differentiate();
+        Expression dv = right.differentiate();
+
+        switch (operator) {
+            case ADD:
+                return du.plus(dv);
+            case SUBTRACT:
+                return du.minus(dv);
+            case MULTIPLY:
+                return du.times(right).plus(left.times(dv));
+            case DIVIDE:
+                return du.times(right).minus(left.times(dv)).divide(right.times(right));
+            case POWER:
+                Expression v = right.simplify();
+                if (v instanceof Constant) {
+                    // (u^c)' = c * u^(c-1) * u'
+                    double c = ((Constant) v).value;
+                    return constant(c).times(left.pow(c - 1)).times(du);
+                }
+                // (u^v)' = u^v * (v' * log(u) + v * u' / u)
+                return this.times(dv.times(left.log()).plus(right.times(du).divide(left)));
+            default:
+                throw new IllegalStateException("Unknown operator " + operator);
+        }
+    }
+
+    @Override
+    void emit(ExpressionCompiler compiler) {
+        left.emit(compiler);
+        right.emit(compiler);
+
+        if (operator == Operator.POWER) compiler.invokeMath("pow", "(DD)D");
+        else compiler.operation(operator.opcode);
+    }
+
+    @Override
+    int stackSize() {
+        return Math.max(left.stackSize(), 2 + right.stackSize());
+    }
+
+    @Override
+    public String toString() {
+        return "(" + left + " " + operator.symbol + " " + right + ")";
+    }
+}
@@ -0,0 +1,41 @@
+package functions.expression;
+
+import functions.Function;
+
+/**
+ * Expression compiled to a dedicated hidden class, see Expression.compile().
+ * f(double) and the bulk loop f(double[], int, int, double[]) are generated for every expression,
+ * so calls aren't shared with other functions and the JIT compiler can inline the whole expression.
+ */
+public abstract class CompiledExpression extends Function {
+
+    private final Expression expression;
+
+    CompiledExpression(Expression expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * Getter for compiled expression.
+     * @return Expression the expression
+     */
+    public Expression expression() {
+        return expression;
+    }
+
+    @Override
+    public abstract double f(double x);
+
+    @Override
+    public abstract void f(double[] x, int offset, int length, double[] result);
+
+    @Override
+    public String name() {
+        return expression.name();
+    }
+
+    @Override
+    public String toString() {
+        return expression.toString();
+    }
+}
@@ -0,0 +1,51 @@
+package functions.expression;
+
+/**
+ * Constant expression.
+ */
+final class Constant extends Expression {
+
+    static final Constant ZERO = new Constant(0);
+    static final Constant ONE = new Constant(1);
+
+    final double value;
+
+    Constant(double value) {
+        this.value = value;
+    }
+
+    @Override
+    public double f(double x) {
+        return value;
+    }
+
+    @Override
+    public Expression simplify() {
+        return this;
+    }
+
+    @Override
+    Expression differentiate() {
+        return ZERO;
+    }
+
+    @Override
+    boolean is(double value) {
+        return Double.compare(this.value, value) == 0;
+    }
+
+    @Override
+    void emit(ExpressionCompiler compiler) {
+        compiler.loadConstant(value);
+    }
+
+    @Override
+    int stackSize() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return Double.toString(value);
+    }
+}
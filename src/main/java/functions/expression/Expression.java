@@ -0,0 +1,150 @@
+package functions.expression;
+
+import functions.Function;
+
+/**
+ * Function of one variable given by expression tree,
+ * built from constants, variable x, arithmetic operations, powers and elementary functions, e.g.
+ * x().times(3).sin().plus(x().pow(2)) is sin(3 * x) + x^2.
+ *
+ * Expression is immutable, it can be simplified by constant folding, differentiated symbolically
+ * and compiled to a dedicated class, see compile().
+ * f(double) interprets the tree, compiled function evaluates the same operations and returns the same values.
+ */
+public abstract class Expression extends Function {
+
+    /**
+     * @return Expression the variable x
+     */
+    public static Expression x() {
+        return Variable.X;
+    }
+
+    /**
+     * @param value the double constant
+     * @return Expression the constant
+     */
+    public static Expression constant(double value) {
+        return new Constant(value);
+    }
+
+    public Expression plus(Expression e) {
+        return new BinaryExpression(BinaryExpression.Operator.ADD, this, e);
+    }
+
+    public Expression plus(double c) {
+        return plus(constant(c));
+    }
+
+    public Expression minus(Expression e) {
+        return new BinaryExpression(BinaryExpression.Operator.SUBTRACT, this, e);
+    }
+
+    public Expression minus(double c) {
+        return minus(constant(c));
+    }
+
+    public Expression times(Expression e) {
+        return new BinaryExpression(BinaryExpression.Operator.MULTIPLY, this, e);
+    }
+
+    public Expression times(double c) {
+        return times(constant(c));
+    }
+
+    public Expression divide(Expression e) {
+        return new BinaryExpression(BinaryExpression.Operator.DIVIDE, this, e);
+    }
+
+    public Expression divide(double c) {
+        return divide(constant(c));
+    }
+
+    public Expression pow(Expression e) {
+        return new BinaryExpression(BinaryExpression.Operator.POWER, this, e);
+    }
+
+    public Expression pow(double c) {
+        return pow(constant(c));
+    }
+
+    public Expression negate() {
+        return new UnaryExpression(UnaryExpression.Operator.NEGATE, this);
+    }
+
+    public Expression sqrt() {
+        return new UnaryExpression(UnaryExpression.Operator.SQRT, this);
+    }
+
+    public Expression abs() {
+        return new UnaryExpression(UnaryExpression.Operator.ABS, this);
+    }
+
+    public Expression sin() {
+        return new UnaryExpression(UnaryExpression.Operator.SIN, this);
+    }
+
+    public Expression cos() {
+        return new UnaryExpression(UnaryExpression.Operator.COS, this);
+    }
+
+    public Expression tan() {
+        return new UnaryExpression(UnaryExpression.Operator.TAN, this);
+    }
+
+    public Expression exp() {
+        return new UnaryExpression(UnaryExpression.Operator.EXP, this);
+    }
+
+    public Expression log() {
+        return new UnaryExpression(UnaryExpression.Operator.LOG, this);
+    }
+
+    /**
+     * Folds constant subexpressions and removes identities like e + 0, e * 1, e^1 or e * 0.
+     * Identities assume finite values, e.g. e * 0 is simplified to 0 even though inf * 0 is NaN.
+     * @return Expression the simplified expression
+     */
+    public abstract Expression simplify();
+
+    /**
+     * Symbolic derivative with respect to x.
+     * @return Expression the simplified derivative
+     */
+    public Expression derivative() {
+        return differentiate().simplify();
+    }
+
+    abstract Expression differentiate();
+
+    /**
+     * Compiles expression to a hidden class with its own f(double) and bulk loop,
+     * so every expression gets a monomorphic method the JIT compiler can inline.
+     * @return CompiledExpression the compiled function
+     */
+    public CompiledExpression compile() {
+        return ExpressionCompiler.compile(this);
+    }
+
+    /**
+     * @return boolean true if expression is the constant value
+     */
+    boolean is(double value) {
+        return false;
+    }
+
+    /**
+     * Emits bytecode pushing the expression value to the operand stack.
+     */
+    abstract void emit(ExpressionCompiler compiler);
+
+    /**
+     * @return int max operand stack size in slots needed to evaluate the expression
+     */
+    abstract int stackSize();
+
+    @Override
+    public String name() {
+        return "expression";
+    }
+}
@@ -0,0 +1,368 @@
+package functions.expression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiles expression to a hidden class extending CompiledExpression.
+ *
+ * Class file (version 52) is written directly, it contains a constructor,
+ * f(double) evaluating the expression and the bulk loop f(double[], int, int, double[]) with inlined expression.
+ * Expression is evaluated on the operand stack in the same order as the interpreted tree,
+ * Math functions are called by invokestatic, so compiled and interpreted values are the same.
+ */
+final class ExpressionCompiler {
+
+    // opcodes
+    static final int DADD = 0x63, DSUB = 0x67, DMUL = 0x6b, DDIV = 0x6f;
+    private static final int ALOAD_0 = 0x2a, ALOAD_1 = 0x2b, ALOAD = 0x19, ILOAD_2 = 0x1c, ILOAD_3 = 0x1d, ILOAD = 0x15,
+            ISTORE = 0x36, IADD = 0x60, IINC = 0x84, DLOAD = 0x18, DSTORE = 0x39, DALOAD = 0x31, DASTORE = 0x52,
+            DNEG = 0x77, LDC2_W = 0x14, INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8, IF_ICMPGE = 0xa2, GOTO = 0xa7,
+            RETURN = 0xb1, DRETURN = 0xaf;
+
+    private static final int ACC_PUBLIC = 0x0001, ACC_FINAL = 0x0010, ACC_SUPER = 0x0020;
+    private static final int ITEM_INTEGER = 1;
+
+    private static final String NAME = "functions/expression/Compiled";
+    private static final String SUPER = "functions/expression/CompiledExpression";
+    private static final String EXPRESSION = "functions/expression/Expression";
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Expression expression;
+    private final ConstantPool pool = new ConstantPool();
+
+    private Code code; // code of the method being written
+    private int xSlot; // local variable with argument x
+
+    private ExpressionCompiler(Expression expression) {
+        this.expression = expression;
+    }
+
+    static CompiledExpression compile(Expression expression) {
+        byte[] bytes = new ExpressionCompiler(expression).toByteArray();
+
+        try {
+            MethodHandles.Lookup lookup = LOOKUP.defineHiddenClass(bytes, true);
+            MethodHandle constructor = lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class, Expression.class));
+            return (CompiledExpression) constructor.invoke(expression);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Expression can't be compiled.", e);
+        }
+    }
+
+    private byte[] toByteArray() {
+        try {
+            ByteArrayOutputStream methods = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(methods);
+
+            out.writeShort(3);
+            writeConstructor(out);
+            writeScalar(out);
+            writeBulk(out);
+
+            int thisClass = pool.classRef(NAME);
+            int superClass = pool.classRef(SUPER);
+
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            out = new DataOutputStream(result);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52);
+            pool.write(out);
+            out.writeShort(ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            methods.writeTo(out);
+            out.writeShort(0); // attributes
+            return result.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Compiled(Expression expression) { super(expression); }
+     */
+    private void writeConstructor(DataOutputStream out) throws IOException {
+        code = new Code();
+        code.u1(ALOAD_0);
+        code.u1(ALOAD_1);
+        code.u1(INVOKESPECIAL);
+        code.u2(pool.methodRef(SUPER, "<init>", "(L" + EXPRESSION + ";)V"));
+        code.u1(RETURN);
+
+        writeMethod(out, "<init>", "(L" + EXPRESSION + ";)V", 2, 2, null);
+    }
+
+    /**
+     * double f(double x) { return expression; }
+     */
+    private void writeScalar(DataOutputStream out) throws IOException {
+        code = new Code();
+        xSlot = 1;
+        expression.emit(this);
+        code.u1(DRETURN);
+
+        writeMethod(out, "f", "(D)D", expression.stackSize(), 3, null);
+    }
+
+    /**
+     * void f(double[] x, int offset, int length, double[] result) {
+     *     for (int i = offset, end = offset + length; i < end; ++i) {
+     *         double xi = x[i];
+     *         result[i] = expression;
+     *     }
+     * }
+     */
+    private void writeBulk(DataOutputStream out) throws IOException {
+        code = new Code();
+        xSlot = 7;
+
+        // locals: 0 this, 1 x, 2 offset, 3 length, 4 result, 5 i, 6 end, 7 xi
+        code.u1(ILOAD_2);
+        code.u1(ILOAD_3);
+        code.u1(IADD);
+        code.u1(ISTORE);
+        code.u1(6);
+        code.u1(ILOAD_2);
+        code.u1(ISTORE);
+        code.u1(5);
+
+        int loop = code.position();
+        code.u1(ILOAD);
+        code.u1(5);
+        code.u1(ILOAD);
+        code.u1(6);
+        int exit = code.position();
+        code.u1(IF_ICMPGE);
+        code.u2(0); // patched below
+
+        code.u1(ALOAD_1);
+        code.u1(ILOAD);
+        code.u1(5);
+        code.u1(DALOAD);
+        code.u1(DSTORE);
+        code.u1(7);
+        code.u1(ALOAD);
+        code.u1(4);
+        code.u1(ILOAD);
+        code.u1(5);
+        expression.emit(this);
+        code.u1(DASTORE);
+        code.u1(IINC);
+        code.u1(5);
+        code.u1(1);
+        code.u1(GOTO);
+        code.u2(loop - code.position() + 1);
+
+        int end = code.position();
+        code.u1(RETURN);
+        code.patch(exit + 1, end - exit);
+
+        // frames: loop header appends i and end to the arguments, exit has the same locals
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        DataOutputStream stackMap = new DataOutputStream(frames);
+        stackMap.writeShort(2);
+        stackMap.writeByte(251 + 2); // append_frame
+        stackMap.writeShort(loop);
+        stackMap.writeByte(ITEM_INTEGER);
+        stackMap.writeByte(ITEM_INTEGER);
+        int delta = end - loop - 1;
+        if (delta < 64) {
+            stackMap.writeByte(delta); // same_frame
+        } else {
+            stackMap.writeByte(251); // same_frame_extended
+            stackMap.writeShort(delta);
+        }
+
+        writeMethod(out, "f", "([DII[D)V", 2 + expression.stackSize(), 9, frames.toByteArray());
+    }
+
+    private void writeMethod(DataOutputStream out, String name, String descriptor, int maxStack, int maxLocals,
+                             byte[] stackMap) throws IOException {
+        byte[] bytes = code.toByteArray();
+        if (bytes.length > Short.MAX_VALUE || maxStack > 0xFFFF)
+            throw new IllegalArgumentException("Expression is too large to compile.");
+
+        out.writeShort(ACC_PUBLIC);
+        out.writeShort(pool.utf8(name));
+        out.writeShort(pool.utf8(descriptor));
+        out.writeShort(1); // attributes
+
+        int stackMapLength = stackMap == null ? 0 : 6 + stackMap.length;
+        out.writeShort(pool.utf8("Code"));
+        out.writeInt(12 + bytes.length + stackMapLength);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.writeShort(0); // exception table
+        if (stackMap == null) {
+            out.writeShort(0);
+        } else {
+            out.writeShort(1);
+            out.writeShort(pool.utf8("StackMapTable"));
+            out.writeInt(stackMap.length);
+            out.write(stackMap);
+        }
+    }
+
+    // instructions used by expressions
+
+    void loadX() {
+        code.u1(DLOAD);
+        code.u1(xSlot);
+    }
+
+    void loadConstant(double value) {
+        code.u1(LDC2_W);
+        code.u2(pool.doubleConstant(value));
+    }
+
+    void negate() {
+        code.u1(DNEG);
+    }
+
+    void operation(int opcode) {
+        code.u1(opcode);
+    }
+
+    void invokeMath(String name, String descriptor) {
+        code.u1(INVOKESTATIC);
+        code.u2(pool.methodRef("java/lang/Math", name, descriptor));
+    }
+
+    /**
+     * Growing bytecode buffer.
+     */
+    private static class Code {
+
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        void u1(int value) {
+            if (size == bytes.length) bytes = Arrays.copyOf(bytes, 2 * size);
+            bytes[size++] = (byte) value;
+        }
+
+        void u2(int value) {
+            u1(value >> 8);
+            u1(value);
+        }
+
+        void patch(int position, int value) {
+            bytes[position] = (byte) (value >> 8);
+            bytes[position + 1] = (byte) value;
+        }
+
+        int position() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    /**
+     * Constant pool, equal entries are shared.
+     */
+    private static class ConstantPool {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> indices = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value) {
+            Integer index = indices.get("U" + value);
+            if (index != null) return index;
+
+            try {
+                out.writeByte(1);
+                out.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return add("U" + value, 1);
+        }
+
+        int classRef(String name) {
+            Integer index = indices.get("C" + name);
+            if (index != null) return index;
+
+            int nameIndex = utf8(name);
+            write(7, nameIndex);
+            return add("C" + name, 1);
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            String key = "M" + owner + '.' + name + descriptor;
+            Integer index = indices.get(key);
+            if (index != null) return index;
+
+            int ownerIndex = classRef(owner);
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+
+            Integer nameAndType = indices.get("N" + name + descriptor);
+            if (nameAndType == null) {
+                write(12, nameIndex, descriptorIndex);
+                nameAndType = add("N" + name + descriptor, 1);
+            }
+
+            write(10, ownerIndex, nameAndType);
+            return add(key, 1);
+        }
+
+        int doubleConstant(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            String key = "D" + bits;
+            Integer index = indices.get(key);
+            if (index != null) return index;
+
+            try {
+                out.writeByte(6);
+                out.writeLong(bits);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return add(key, 2); // double takes two entries
+        }
+
+        private void write(int tag, int... values) {
+            try {
+                out.writeByte(tag);
+                for (int value : values)
+                    out.writeShort(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private int add(String key, int size) {
+            if (count + size > 0xFFFF) throw new IllegalArgumentException("Expression is too large to compile.");
+
+            int index = count;
+            indices.put(key, index);
+            count += size;
+            return index;
+        }
+
+        void write(DataOutputStream target) throws IOException {
+            target.writeShort(count);
+            bytes.writeTo(target);
+        }
+    }
+}
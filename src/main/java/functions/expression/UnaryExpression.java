@@ -0,0 +1,136 @@
+package functions.expression;
+
+/**
+ * Unary operation or elementary function of an expression.
+ */
+final class UnaryExpression extends Expression {
+
+    enum Operator {
+        NEGATE("-") {
+            @Override
+            double apply(double u) {
+                return -u;
+            }
+        },
+        SQRT("sqrt") {
+            @Override
+            double apply(double u) {
+                return Math.sqrt(u);
+            }
+        },
+        ABS("abs") {
+            @Override
+            double apply(double u) {
+                return Math.abs(u);
+            }
+        },
+        SIN("sin") {
+            @Override
+            double apply(double u) {
+                return Math.sin(u);
+            }
+        },
+        COS("cos") {
+            @Override
+            double apply(double u) {
+                return Math.cos(u);
+            }
+        },
+        TAN("tan") {
+            @Override
+            double apply(double u) {
+                return Math.tan(u);
+            }
+        },
+        EXP("exp") {
+            @Override
+            double apply(double u) {
+                return Math.exp(u);
+            }
+        },
+        LOG("log") {
+            @Override
+            double apply(double u) {
+                return Math.log(u);
+            }
+        };
+
+        private final String symbol; // also name of the method in java.lang.Math
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        abstract double apply(double u);
+    }
+
+    private final Operator operator;
+    private final Expression operand;
+
+    UnaryExpression(Operator operator, Expression operand) {
+        this.operator = operator;
+        this.operand = operand;
+    }
+
+    @Override
+    public double f(double x) {
+        return operator.apply(operand.f(x));
+    }
+
+    @Override
+    public Expression simplify() {
+        Expression u = operand.simplify();
+
+        if (u instanceof Constant) return new Constant(operator.apply(((Constant) u).value));
+        if (operator == Operator.NEGATE && u instanceof UnaryExpression && ((UnaryExpression) u).operator == Operator.NEGATE)
+            return ((UnaryExpression) u).operand;
+
+        return new UnaryExpression(operator, u);
+    }
+
+    @Override
+    Expression differentiate() {
+        Expression u = operand;
+        Expression du = operand.differentiate();
+
+        switch (operator) {
+            case NEGATE:
+                return du.negate();
+            case SQRT:
+                return du.divide(u.sqrt().times(2));
+            case ABS:
+                return u.times(du).divide(u.abs());
+            case SIN:
+                return u.cos().times(du);
+            case COS:
+                return u.sin().negate().times(du);
+            case TAN:
+                return du.divide(u.cos().pow(2));
+            case EXP:
+                return u.exp().times(du);
+            case LOG:
+                return du.divide(u);
+            default:
+                throw new IllegalStateException("Unknown operator " + operator);
+        }
+    }
+
+    @Override
+    void emit(ExpressionCompiler compiler) {
+        operand.emit(compiler);
+
+        if (operator == Operator.NEGATE) compiler.negate();
+        else compiler.invokeMath(operator.symbol, "(D)D");
+    }
+
+    @Override
+    int stackSize() {
+        return operand.stackSize();
+    }
+
+    @Override
+    public String toString() {
+        if (operator == Operator.NEGATE) return "-" + operand;
+        return operator.symbol + "(" + operand + ")";
+    }
+}
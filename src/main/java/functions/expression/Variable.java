@@ -0,0 +1,42 @@
+package functions.expression;
+
+/**
+ * Variable x.
+ */
+final class Variable extends Expression {
+
+    static final Variable X = new Variable();
+
+    private Variable() {
+    }
+
+    @Override
+    public double f(double x) {
+        return x;
+    }
+
+    @Override
+    public Expression simplify() {
+        return this;
+    }
+
+    @Override
+    Expression differentiate() {
+        return Constant.ONE;
+    }
+
+    @Override
+    void emit(ExpressionCompiler compiler) {
+        compiler.loadX();
+    }
+
+    @Override
+    int stackSize() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "x";
+    }
+}
@@ -0,0 +1,157 @@
+package polynomial_curve_fitting;
+
+import functions.Function;
+import functions.Polynomial;
+import polynomial_curve_fitting.utils.ErrorMetrics;
+import set.SplitStrategy;
+import set.TrainingSetView;
+
+/**
+ * Common base for Polynomial Curve Fitting implementations with model selection on validation data.
+ * Splits available data to training set and validation set,
+ * subclasses find polynomial coefficients for each degree and fill degreeToRMS.
+ * Both sets are views sharing vectors x and t, see SplitStrategy, by default the first SPLIT_RATIO of points
+ * is used for training and the rest for validation.
+ *
+ * @see polynomial_curve_fitting.PolynomialCurveFitting for vector definitions.
+ */
+public abstract class AbstractPCF implements PolynomialCurveFitting {
+
+    static final int MAX_DEGREE = 50; // max polynomial degree
+    static final float SPLIT_RATIO = 0.8f; // ratio of training and validation sets
+
+    int size;
+    double[] x; // vector
+    double[] t; // targets
+    double[] w; // coefficients of polynomial that minimizes error
+
+    SplitStrategy split = SplitStrategy.prefix(); // how points are split to training and validation set
+    TrainingSetView training; // fraction of x and t, without validation set
+    TrainingSetView validation;
+
+    double[] degreeToRMS; // maps polynomial degree to RMS error
+    private ErrorMetrics errorMetrics; // errors of optimal polynomial with all points
+
+    SearchPolicy policy = new SearchPolicy(); // which polynomial degrees are evaluated
+    int[] evaluatedDegrees; // polynomial degrees evaluated by model selection
+
+    /**
+     * Basic constructor for Polynomial Curve Fitting consisting of vectors x and t.
+     * @param x the vector x
+     * @param t the vector t, corresponding targets.
+     */
+    AbstractPCF(double[] x, double[] t) {
+        if (x.length != t.length)
+            throw new IllegalArgumentException("Vector and targets length are not same.");
+
+        this.x = x;
+        this.t = t;
+        this.size = x.length;
+        separateTrainingAndValidationSets();
+    }
+
+    /**
+     * Splits vector x and t with split strategy and const SPLIT_RATIO to training set and validation set.
+     * Nothing is copied, both sets are views of vectors x and t.
+     */
+    private void separateTrainingAndValidationSets() {
+        SplitStrategy.Split views = split.split(TrainingSetView.of(x, t), SPLIT_RATIO);
+        training = views.training();
+        validation = views.validation();
+    }
+
+    /**
+     * Sets how points are split to training and validation set, SplitStrategy.prefix() by default.
+     * Sorted vectors should be split by shuffled or stratified strategy,
+     * otherwise validation points lie outside the range of training points.
+     * @param split the SplitStrategy
+     * @return AbstractPCF this instance
+     */
+    public AbstractPCF split(SplitStrategy split) {
+        this.split = split;
+        separateTrainingAndValidationSets();
+        this.w = null;
+        this.errorMetrics = null;
+        return this;
+    }
+
+    /**
+     * Sets policy of model selection, by default all degrees up to MAX_DEGREE are evaluated.
+     * @param policy the SearchPolicy
+     * @return AbstractPCF this instance
+     */
+    public AbstractPCF policy(SearchPolicy policy) {
+        this.policy = policy;
+        this.w = null;
+        this.errorMetrics = null;
+        return this;
+    }
+
+    /**
+     * Find optimal polynomial coefficients,
+     * where polynomial(x) = sum(w[i] * x^i) from i=0 to M
+     */
+    abstract void setCoefficients();
+
+    @Override
+    public Function polynomial() {
+        if (w == null) setCoefficients();
+        return new Polynomial(w);
+    }
+
+    @Override
+    public double[] coefficients() {
+        if (w == null) setCoefficients();
+        return w;
+    }
+
+    @Override
+    public int degree() {
+        return coefficients().length - 1;
+    }
+
+    @Override
+    public double[] x() {
+        return x;
+    }
+
+    @Override
+    public double[] t() {
+        return t;
+    }
+
+    @Override
+    public double errorRMS() {
+        return errorMetrics().rootMeanSquare();
+    }
+
+    /**
+     * Computes error metrics of optimal polynomial with all points in a single pass,
+     * they are computed once and reused by errorRMS().
+     * @return ErrorMetrics the metrics
+     */
+    public ErrorMetrics errorMetrics() {
+        if (w == null) errorMetrics = null;
+        if (errorMetrics == null) errorMetrics = ErrorMetrics.of(polynomial(), x, t);
+        return errorMetrics;
+    }
+
+    @Override
+    public double[] getDegreeToRMS() {
+        return degreeToRMS;
+    }
+
+    /**
+     * Getter for polynomial degrees evaluated by model selection, see SearchPolicy
+     * @return int[] the degrees in increasing order
+     */
+    public int[] getEvaluatedDegrees() {
+        if (w == null) setCoefficients();
+        return evaluatedDegrees;
+    }
+
+    @Override
+    public double[][] getDegreeLambdaToRMS() {
+        return null;
+    }
+}
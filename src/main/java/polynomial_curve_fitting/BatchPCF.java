@@ -0,0 +1,245 @@
+package polynomial_curve_fitting;
+
+import functions.Function;
+import functions.Polynomial;
+import polynomial_curve_fitting.utils.ErrorMetrics;
+import set.TrainingSetView;
+import utils.IncrementalCholesky;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static polynomial_curve_fitting.AbstractPCF.MAX_DEGREE;
+import static polynomial_curve_fitting.AbstractPCF.SPLIT_RATIO;
+
+/**
+ * Polynomial Curve Fitting of many target series sharing one vector x.
+ * Splits vector x and every series of targets to training set and validation set,
+ * first SPLIT_RATIO of points is the training set, the rest is the validation set.
+ *
+ * Matrix A depends only on vector x, so it is built and decomposed by Cholesky decomposition only once,
+ * see IncrementalCholesky, whose leading blocks solve all degrees, and vector T of every series
+ * is just another right-hand side of the same equation. Degrees whose matrix A is not numerically positive definite
+ * are skipped, the same way as in LeastSquaresPCF.
+ *
+ * Model selection, i.e. selection of the polynomial degree, is done for every series separately
+ * by finding lowest root-mean-square error with validation data. The error is computed from residuals
+ * of all degrees in a single pass over validation points, see ValidationScorer,
+ * since terms of the error computed from moments cancel each other for high degrees.
+ * Error of the optimal polynomial with all points is computed from residuals as well.
+ * Series are processed in blocks, which can run in parallel.
+ *
+ * @see polynomial_curve_fitting.PolynomialCurveFitting for vector definitions.
+ */
+public class BatchPCF {
+
+    private static System.Logger LOGGER = System.getLogger(BatchPCF.class.getName());
+
+    static final int BLOCK_SIZE = 64; // number of series processed by one task
+
+    private final double[] x; // vector
+    private final double[][] targets; // targets[s] is vector t of series s
+    private final int trainingSize;
+
+    private double[][] w; // coefficients of polynomial that minimizes error for each series
+    private double[][] degreeToRMS; // maps polynomial degree to RMS error for each series
+    private double[] errorRMS; // RMS error of optimal polynomial with all points for each series
+
+    private Executor executor; // processes blocks of series in parallel, null for sequential
+
+    /**
+     * Constructor for Polynomial Curve Fitting of all target series with vector x.
+     * @param x the vector x
+     * @param targets the double[][], where targets[s] is vector t of series s
+     */
+    public BatchPCF(double[] x, double[][] targets) {
+        for (double[] t : targets) {
+            if (t.length != x.length)
+                throw new IllegalArgumentException("Vector and targets length are not same.");
+        }
+
+        this.x = x;
+        this.targets = targets;
+        this.trainingSize = Math.round(x.length * SPLIT_RATIO);
+    }
+
+    /**
+     * Enables parallel processing of series blocks on the common ForkJoinPool.
+     * @return BatchPCF this instance
+     */
+    public BatchPCF parallel() {
+        return parallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Enables parallel processing, every block of BLOCK_SIZE series is processed as a separate task.
+     * @param executor the Executor running the tasks, null for sequential processing
+     * @return BatchPCF this instance
+     */
+    public BatchPCF parallel(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Find optimal polynomial coefficients of all series.
+     */
+    private void setCoefficients() {
+        int series = targets.length;
+        w = new double[series][];
+        degreeToRMS = new double[series][];
+        errorRMS = new double[series];
+
+        // power sums of training set are shared by all series, matrix A of every solvable degree is a leading block
+        double[] trainingPowerSums = powerSums(0, trainingSize);
+        IncrementalCholesky cholesky = new IncrementalCholesky(MAX_DEGREE + 1);
+        while (cholesky.size() <= MAX_DEGREE && cholesky.extend(trainingPowerSums, cholesky.size(), 0));
+
+        if (cholesky.size() <= MAX_DEGREE)
+            LOGGER.log(System.Logger.Level.ERROR, "Matrix of degree " + cholesky.size() + " is not positive definite, higher degrees are skipped.");
+
+        int blocks = (series + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        if (executor == null) {
+            for (int b = 0; b < blocks; ++b)
+                fitBlock(b * BLOCK_SIZE, Math.min(series, (b + 1) * BLOCK_SIZE), cholesky);
+        } else {
+            CompletableFuture<?>[] tasks = new CompletableFuture<?>[blocks];
+            for (int b = 0; b < blocks; ++b) {
+                final int from = b * BLOCK_SIZE, to = Math.min(series, (b + 1) * BLOCK_SIZE);
+                tasks[b] = CompletableFuture.runAsync(() -> fitBlock(from, to, cholesky), executor);
+            }
+
+            try {
+                CompletableFuture.allOf(tasks).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Fits series from, from+1, ... to-1, the decomposition is only read, so blocks can share it.
+     */
+    private void fitBlock(int from, int to, IncrementalCholesky cholesky) {
+        for (int s = from; s < to; ++s) {
+            double[] t = targets[s];
+            double[] crossSums = crossSums(t, 0, trainingSize);
+
+            // solve all solvable degrees of the series with the shared decomposition
+            double[][] candidates = new double[MAX_DEGREE + 1][];
+            for (int degree = 0; degree < cholesky.size(); ++degree) {
+                candidates[degree] = new double[degree + 1];
+                cholesky.solve(degree + 1, crossSums, candidates[degree]);
+            }
+
+            // model comparison - compute RMS errors of all degrees with validation data
+            TrainingSetView points = TrainingSetView.of(x, t).slice(trainingSize, x.length);
+            double[] RMS = ValidationScorer.rootMeanSquare(candidates, points, null);
+            double minimalRMS = Double.MAX_VALUE;
+            degreeToRMS[s] = new double[MAX_DEGREE + 1];
+
+            for (int degree = 0; degree < cholesky.size(); ++degree) {
+                degreeToRMS[s][degree] = RMS[degree];
+
+                // updates vector w if RMS is lower than the previous one found, ties go to the higher degree
+                if (RMS[degree] <= minimalRMS) {
+                    minimalRMS = RMS[degree];
+                    w[s] = candidates[degree];
+                }
+            }
+
+            if (w[s] != null) errorRMS[s] = ErrorMetrics.of(new Polynomial(w[s]), x, t).rootMeanSquare();
+        }
+    }
+
+    /**
+     * Computes power sums sum(x[n]^k) from n=from to to-1, k = 0..2*MAX_DEGREE.
+     */
+    private double[] powerSums(int from, int to) {
+        double[] sums = new double[2 * MAX_DEGREE + 1];
+
+        for (int n = from; n < to; ++n) {
+            double power = 1;
+            for (int k = 0; k <= 2 * MAX_DEGREE; ++k) {
+                sums[k] += power;
+                power *= x[n];
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Computes cross sums sum(x[n]^k * t[n]) from n=from to to-1, k = 0..MAX_DEGREE.
+     */
+    private double[] crossSums(double[] t, int from, int to) {
+        double[] sums = new double[MAX_DEGREE + 1];
+
+        for (int n = from; n < to; ++n) {
+            double power = t[n];
+            for (int k = 0; k <= MAX_DEGREE; ++k) {
+                sums[k] += power;
+                power *= x[n];
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Getter for number of series
+     * @return int the number of series
+     */
+    public int size() {
+        return targets.length;
+    }
+
+    /**
+     * Getter for optimal polynomial of series
+     * @param series the int index of series
+     * @return Function the polynomial
+     */
+    public Function polynomial(int series) {
+        return new Polynomial(coefficients(series));
+    }
+
+    /**
+     * Getter for optimal polynomial coefficients of series
+     * @param series the int index of series
+     * @return double[] the vector w, null if no degree could be fitted
+     */
+    public double[] coefficients(int series) {
+        if (w == null) setCoefficients();
+        return w[series];
+    }
+
+    /**
+     * Getter for degree of optimal polynomial of series
+     * @param series the int index of series
+     * @return int the degree
+     */
+    public int degree(int series) {
+        return coefficients(series).length - 1;
+    }
+
+    /**
+     * Computes the root-mean-square error for optimal polynomial of series with all points
+     * @param series the int index of series
+     * @return double the root-mean-square error
+     */
+    public double errorRMS(int series) {
+        if (w == null) setCoefficients();
+        return errorRMS[series];
+    }
+
+    /**
+     * Getter for degreeToRMS of series
+     * @param series the int index of series
+     * @return double[] the mapped polynomial degree to its RMS error with validation data
+     */
+    public double[] getDegreeToRMS(int series) {
+        if (w == null) setCoefficients();
+        return degreeToRMS[series];
+    }
+}
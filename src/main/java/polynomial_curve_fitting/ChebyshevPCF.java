@@ -0,0 +1,135 @@
+package polynomial_curve_fitting;
+
+import functions.ChebyshevSeries;
+import functions.Function;
+import polynomial_curve_fitting.utils.ErrorMetrics;
+import set.TrainingSet;
+import utils.IncrementalCholesky;
+
+/**
+ * Polynomial Curve Fitting in Chebyshev basis.
+ * Splits available data to training set and validation set.
+ *
+ * Domain [min, max] is mapped to [-1, 1], u = (2*x - (max + min)) / (max - min),
+ * and polynomial is y(x, c) = sum(c[j] * T[j](u)) from j=0 to M, see ChebyshevSeries.
+ * Unlike powers of raw x, Chebyshev polynomials are nearly orthogonal over the domain,
+ * so the normal equations stay well-conditioned and high degrees can be fitted.
+ *
+ * Least squares method leads to equation sum(G[i][j] * c[j]) from j=0 to M = B[i], solved by Cholesky decomposition,
+ * where G[i][j] = sum(T[i](u[n]) * T[j](u[n])) and B[i] = sum(T[i](u[n]) * t[n]) from n=1 to N.
+ * Since T[i] * T[j] = (T[i+j] + T[|i-j|]) / 2, matrix G of every degree is built from
+ * 2*M+1 sums sum(T[k](u[n])), computed in a single pass over the training set.
+ *
+ * Model selection, i.e. selection of the polynomial degree,
+ * is done by finding lowest root-mean-square error with validation data for each degree.
+ * Evaluated degrees are limited by SearchPolicy.
+ *
+ * polynomial() returns the Chebyshev form evaluated with Clenshaw recurrence,
+ * coefficients() converts it to monomial form, which is ill-conditioned for high degrees on wide domains.
+ *
+ * @see polynomial_curve_fitting.PolynomialCurveFitting for vector definitions.
+ */
+public class ChebyshevPCF extends AbstractPCF {
+
+    private static System.Logger LOGGER = System.getLogger(ChebyshevPCF.class.getName());
+
+    private final double min, max; // domain
+
+    private ChebyshevSeries chebyshevSeries; // polynomial that minimizes error in Chebyshev form
+
+    /**
+     * Constructor for Polynomial Curve Fitting consisting of vectors x and t from domain [domainMin, domainMax].
+     * @param x the vector x
+     * @param t the vector t, corresponding targets.
+     * @param domainMin the double domain's min
+     * @param domainMax the double domain's max
+     */
+    public ChebyshevPCF(double[] x, double[] t, double domainMin, double domainMax) {
+        super(x, t);
+
+        if (domainMin >= domainMax) throw new IllegalArgumentException("Domain's min can't be greater than domain's max");
+        this.min = domainMin;
+        this.max = domainMax;
+    }
+
+    /**
+     * Constructor for Polynomial Curve Fitting of training set over its domain.
+     * @param set the TrainingSet
+     */
+    public ChebyshevPCF(TrainingSet set) {
+        this(set.vector(), set.targets(), set.domainMin(), set.domainMax());
+    }
+
+    @Override
+    void setCoefficients() {
+        int maxDegree = policy.maxDegree();
+
+        // sums of Chebyshev polynomials over the training set
+        double[] chebyshevSums = new double[2 * maxDegree + 1]; // sum(T[k](u[n])), k = 0..2*M
+        double[] crossSums = new double[maxDegree + 1]; // sum(T[k](u[n]) * t[n]), k = 0..M
+
+        training.forEachChunk((x, t, offset, length) -> {
+            for (int n = offset; n < offset + length; ++n) {
+                double u = (2 * x[n] - (max + min)) / (max - min);
+                double tPrev = 1, tk = u;
+
+                chebyshevSums[0] += 1;
+                crossSums[0] += t[n];
+
+                for (int k = 1; k <= 2 * maxDegree; ++k) {
+                    chebyshevSums[k] += tk;
+                    if (k <= maxDegree) crossSums[k] += tk * t[n];
+
+                    double tNext = 2 * u * tk - tPrev;
+                    tPrev = tk;
+                    tk = tNext;
+                }
+            }
+        });
+
+        degreeToRMS = new double[maxDegree + 1];
+        SearchPolicy.Search search = policy.start();
+        double minimalRMS = Double.MAX_VALUE;
+        chebyshevSeries = null;
+
+        // matrix G of degree d+1 extends matrix G of degree d, so its decomposition is extended row by row
+        IncrementalCholesky cholesky = new IncrementalCholesky(maxDegree + 1);
+        double[] row = new double[maxDegree + 1];
+
+        // model comparison - iterate over all possible polynomial degrees
+        for (int degree = 0; search.proceed(degree); ++degree) {
+            for (int j = 0; j <= degree; ++j)
+                row[j] = (chebyshevSums[degree + j] + chebyshevSums[degree - j]) / 2;
+
+            if (!cholesky.extend(row, 0, crossSums[degree])) {
+                LOGGER.log(System.Logger.Level.ERROR, "Matrix of degree " + degree + " is not positive definite, higher degrees are skipped.");
+                break;
+            }
+
+            double[] c = new double[degree + 1];
+            cholesky.solve(degree + 1, c);
+            ChebyshevSeries series = new ChebyshevSeries(c, min, max);
+
+            // compute RMS error, use validation data to compute the root-mean-square error
+            double RMS = ErrorMetrics.of(series, validation).rootMeanSquare();
+            degreeToRMS[degree] = RMS;
+            search.record(degree, RMS);
+
+            // updates polynomial if RMS is lower than the previous one found
+            if (RMS <= minimalRMS) {
+                minimalRMS = RMS;
+                chebyshevSeries = series;
+            }
+        }
+        evaluatedDegrees = search.evaluated();
+
+        if (chebyshevSeries == null) throw new IllegalStateException("No polynomial degree can be fitted.");
+        w = chebyshevSeries.toPolynomial().coefficients();
+    }
+
+    @Override
+    public Function polynomial() {
+        if (w == null) setCoefficients();
+        return chebyshevSeries;
+    }
+}
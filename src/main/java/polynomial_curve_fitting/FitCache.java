@@ -0,0 +1,355 @@
+package polynomial_curve_fitting;
+
+import functions.ChebyshevSeries;
+import functions.Function;
+import functions.Polynomial;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Bounded cache of finished Polynomial Curve Fittings.
+ *
+ * Fittings are keyed by 128-bit fingerprint of vectors x and t, their length and a configuration string,
+ * which has to describe everything else the fitting depends on, e.g. its class and search policy.
+ * On a hit, SAMPLES values of x and t spread over the vectors are compared with the cached vectors as well,
+ * a fingerprint collision which passes also this check is accepted.
+ * A mismatch is counted as a miss and the fitting is computed without caching.
+ * Least recently used fittings are evicted when the cache holds more than maxEntries fittings
+ * or more than maxPoints points in total.
+ *
+ * Cache is thread-safe. When more threads request the same fitting at once,
+ * only the first one computes it and the others wait for its result.
+ * Cached fittings keep references to vectors x and t, which must not be modified afterwards.
+ * Every call returns a new view of the cached fitting, whose coefficients(), getDegreeToRMS(),
+ * getDegreeLambdaToRMS() and polynomial() are copies, so callers can't change the cached fitting.
+ */
+public class FitCache {
+
+    private static final int SAMPLES = 64; // values of x and t compared on a hit
+
+    private final int maxEntries;
+    private final long maxPoints;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // in access order
+    private long points; // number of points of all cached fittings
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxEntries the int max number of cached fittings
+     */
+    public FitCache(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param maxEntries the int max number of cached fittings
+     * @param maxPoints the long max number of points of all cached fittings
+     */
+    public FitCache(int maxEntries, long maxPoints) {
+        if (maxEntries < 1 || maxPoints < 1) throw new IllegalArgumentException("Cache limits have to be positive.");
+
+        this.maxEntries = maxEntries;
+        this.maxPoints = maxPoints;
+    }
+
+    /**
+     * Returns least squares fitting of vectors x and t, see LeastSquaresPCF.
+     * @param x the vector x
+     * @param t the vector t, corresponding targets.
+     * @return PolynomialCurveFitting the finished fitting
+     */
+    public PolynomialCurveFitting get(double[] x, double[] t) {
+        return get(x, t, LeastSquaresPCF.class.getName(), LeastSquaresPCF::new);
+    }
+
+    /**
+     * Returns cached fitting of vectors x and t or creates it with the factory.
+     * The fitting is finished, i.e. its coefficients are computed, before it is cached.
+     * @param x the vector x
+     * @param t the vector t, corresponding targets.
+     * @param configuration the String describing the fitting created by the factory
+     * @param factory the BiFunction creating the fitting from vectors x and t
+     * @return PolynomialCurveFitting the finished fitting
+     */
+    public PolynomialCurveFitting get(double[] x, double[] t, String configuration,
+                                      BiFunction<double[], double[], ? extends PolynomialCurveFitting> factory) {
+        Key key = new Key(x, t, configuration);
+        Entry entry;
+        boolean owner = false;
+
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(x, t);
+                entries.put(key, entry);
+                points += entry.points;
+                owner = true;
+                evict();
+            }
+        }
+
+        if (!owner) {
+            PolynomialCurveFitting fitting;
+            try {
+                fitting = entry.fitting.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+
+            if (entry.matches(x, t)) {
+                hits.incrementAndGet();
+                return new CachedFitting(fitting);
+            }
+
+            // fingerprint collision, the fitting of other vectors stays cached
+            misses.incrementAndGet();
+            fitting = factory.apply(x, t);
+            fitting.coefficients();
+            return fitting;
+        }
+
+        misses.incrementAndGet();
+        try {
+            PolynomialCurveFitting fitting = factory.apply(x, t);
+            fitting.coefficients();
+            entry.fitting.complete(fitting);
+            return new CachedFitting(fitting);
+        } catch (RuntimeException e) {
+            // failed fittings are not cached
+            synchronized (entries) {
+                if (entries.remove(key, entry)) points -= entry.points;
+            }
+            entry.fitting.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Evicts least recently used entries over the limits, the most recent entry always stays.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+
+        while ((entries.size() > maxEntries || points > maxPoints) && entries.size() > 1) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            points -= eldest.points;
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes all cached fittings, statistics are kept.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            points = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "FitCache{" +
+                "size=" + size() +
+                ", hits=" + hits() +
+                ", misses=" + misses() +
+                ", evictions=" + evictions() + "}";
+    }
+
+    /**
+     * Cached fitting, completed by the thread which computes it.
+     */
+    private static class Entry {
+
+        private final CompletableFuture<PolynomialCurveFitting> fitting = new CompletableFuture<>();
+        private final double[] x, t; // vectors of the fitting
+        private final long points;
+
+        private Entry(double[] x, double[] t) {
+            this.x = x;
+            this.t = t;
+            this.points = x.length;
+        }
+
+        /**
+         * @return boolean true if vectors are the cached ones or they agree in length and SAMPLES values
+         */
+        private boolean matches(double[] x, double[] t) {
+            if (x == this.x && t == this.t) return true;
+            if (x.length != this.x.length || t.length != this.t.length) return false;
+
+            for (int k = 0; k < SAMPLES && k < x.length; ++k) {
+                int n = (int) ((long) k * (x.length - 1) / Math.max(1, Math.min(SAMPLES, x.length) - 1));
+                if (Double.doubleToLongBits(x[n]) != Double.doubleToLongBits(this.x[n])
+                        || Double.doubleToLongBits(t[n]) != Double.doubleToLongBits(this.t[n])) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * View of a cached fitting, arrays are copied, so the cached fitting can't be changed through the view.
+     */
+    private static class CachedFitting implements PolynomialCurveFitting {
+
+        private final PolynomialCurveFitting fitting;
+
+        private CachedFitting(PolynomialCurveFitting fitting) {
+            this.fitting = fitting;
+        }
+
+        @Override
+        public Function polynomial() {
+            Function polynomial = fitting.polynomial();
+            if (polynomial instanceof Polynomial)
+                return new Polynomial(((Polynomial) polynomial).coefficients().clone());
+            if (polynomial instanceof ChebyshevSeries) {
+                ChebyshevSeries series = (ChebyshevSeries) polynomial;
+                return new ChebyshevSeries(series.coefficients().clone(), series.domainMin(), series.domainMax());
+            }
+            return polynomial;
+        }
+
+        @Override
+        public double[] coefficients() {
+            return fitting.coefficients().clone();
+        }
+
+        @Override
+        public int degree() {
+            return fitting.degree();
+        }
+
+        @Override
+        public double[] x() {
+            return fitting.x();
+        }
+
+        @Override
+        public double[] t() {
+            return fitting.t();
+        }
+
+        @Override
+        public double errorRMS() {
+            return fitting.errorRMS();
+        }
+
+        @Override
+        public double[] getDegreeToRMS() {
+            double[] degreeToRMS = fitting.getDegreeToRMS();
+            return degreeToRMS == null ? null : degreeToRMS.clone();
+        }
+
+        @Override
+        public double[][] getDegreeLambdaToRMS() {
+            double[][] degreeLambdaToRMS = fitting.getDegreeLambdaToRMS();
+            if (degreeLambdaToRMS == null) return null;
+
+            double[][] copy = new double[degreeLambdaToRMS.length][];
+            for (int i = 0; i < copy.length; ++i)
+                copy[i] = degreeLambdaToRMS[i].clone();
+            return copy;
+        }
+    }
+
+    /**
+     * Fingerprint of vectors x and t with configuration.
+     */
+    private static class Key {
+
+        private static final long SEED_1 = 0x9E3779B97F4A7C15L;
+        private static final long SEED_2 = 0xC2B2AE3D27D4EB4FL;
+
+        private final long x1, x2, t1, t2;
+        private final int length;
+        private final String configuration;
+
+        private Key(double[] x, double[] t, String configuration) {
+            long[] hash = new long[2];
+
+            fingerprint(x, hash);
+            x1 = hash[0];
+            x2 = hash[1];
+
+            fingerprint(t, hash);
+            t1 = hash[0];
+            t2 = hash[1];
+
+            this.length = x.length;
+            this.configuration = configuration;
+        }
+
+        /**
+         * Computes two independent 64-bit hashes of the vector in a single pass.
+         */
+        private static void fingerprint(double[] vector, long[] hash) {
+            long h1 = SEED_1, h2 = SEED_2;
+
+            for (double value : vector) {
+                long bits = Double.doubleToLongBits(value);
+                h1 = Long.rotateLeft(h1 ^ bits * 0x87C37B91114253D5L, 31) * 0x4CF5AD432745937FL;
+                h2 = Long.rotateLeft(h2 ^ bits * 0x52DCE729L, 27) * 0x38495AB5L + h1;
+            }
+
+            hash[0] = mix(h1 ^ vector.length);
+            hash[1] = mix(h2 ^ vector.length);
+        }
+
+        /**
+         * Finalization mix of MurmurHash3.
+         */
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return x1 == key.x1 && x2 == key.x2 && t1 == key.t1 && t2 == key.t2
+                    && length == key.length && configuration.equals(key.configuration);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(x1 ^ t1) * 31 + configuration.hashCode();
+        }
+    }
+}
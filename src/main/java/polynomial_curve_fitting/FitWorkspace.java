@@ -0,0 +1,168 @@
+package polynomial_curve_fitting;
+
+import utils.IncrementalCholesky;
+
+import java.util.Arrays;
+
+import static java.lang.Math.sqrt;
+import static polynomial_curve_fitting.AbstractPCF.SPLIT_RATIO;
+
+/**
+ * Reusable workspace for repeated least squares Polynomial Curve Fitting without allocations.
+ * All arrays are allocated once for given max degree, so fits in a long-running service produce no garbage.
+ *
+ * First SPLIT_RATIO of points is the training set, the rest is the validation set.
+ * Training moments are accumulated in a single pass, matrix A is decomposed by IncrementalCholesky
+ * one degree at a time and the sweep stops at the first degree, where A is not numerically positive definite.
+ * Model selection is done by finding lowest root-mean-square error with validation data for each degree.
+ *
+ * Workspace is not thread-safe, use one workspace per thread.
+ *
+ * @see polynomial_curve_fitting.PolynomialCurveFitting for vector definitions.
+ */
+public class FitWorkspace {
+
+    private final int maxDegree;
+    private final double[] powerSums; // k = 0..2*M
+    private final double[] crossSums; // k = 0..M
+    private final IncrementalCholesky cholesky;
+    private final double[] tempW;
+    private final double[] w; // coefficients of polynomial that minimizes error
+
+    private int degree = -1; // degree of polynomial that minimizes error, -1 before first fit
+    private double RMS; // RMS error of polynomial that minimizes error with validation data
+
+    /**
+     * @param maxDegree the int max polynomial degree
+     */
+    public FitWorkspace(int maxDegree) {
+        if (maxDegree < 0) throw new IllegalArgumentException("Max degree can't be negative.");
+
+        this.maxDegree = maxDegree;
+        this.powerSums = new double[2 * maxDegree + 1];
+        this.crossSums = new double[maxDegree + 1];
+        this.cholesky = new IncrementalCholesky(maxDegree + 1);
+        this.tempW = new double[maxDegree + 1];
+        this.w = new double[maxDegree + 1];
+    }
+
+    /**
+     * Fits all points of vector x with corresponding targets t.
+     * @return int the degree of optimal polynomial
+     */
+    public int fit(double[] x, double[] t) {
+        return fit(x, t, 0, x.length);
+    }
+
+    /**
+     * Fits points x[offset], ... x[offset + length - 1] with corresponding targets.
+     * @return int the degree of optimal polynomial
+     */
+    public int fit(double[] x, double[] t, int offset, int length) {
+        if (x.length != t.length)
+            throw new IllegalArgumentException("Vector and targets length are not same.");
+
+        int trainingSize = Math.round(length * SPLIT_RATIO);
+        if (trainingSize == 0 || trainingSize == length)
+            throw new IllegalArgumentException("Not enough points to fit polynomial.");
+
+        setMoments(x, t, offset, trainingSize);
+
+        cholesky.reset();
+        degree = -1;
+        RMS = Double.MAX_VALUE;
+
+        // model comparison - iterate over all possible polynomial degrees
+        for (int d = 0; d <= maxDegree; ++d) {
+            if (!cholesky.extend(powerSums, d, crossSums[d])) break;
+            cholesky.solve(d + 1, tempW);
+
+            // compute RMS error, use validation data to compute the root-mean-square error
+            double sum = 0;
+            for (int n = offset + trainingSize; n < offset + length; ++n) {
+                double e = horner(tempW, d, x[n]) - t[n];
+                sum += e * e;
+            }
+            double tempRMS = sqrt(2 * sum / (length - trainingSize));
+
+            // updates vector w if RMS is lower than the previous one found
+            if (tempRMS <= RMS) {
+                RMS = tempRMS;
+                degree = d;
+                System.arraycopy(tempW, 0, w, 0, d + 1);
+            }
+        }
+
+        if (degree < 0) throw new IllegalStateException("No polynomial degree can be fitted.");
+        return degree;
+    }
+
+    private void setMoments(double[] x, double[] t, int offset, int length) {
+        Arrays.fill(powerSums, 0);
+        Arrays.fill(crossSums, 0);
+
+        for (int n = offset; n < offset + length; ++n) {
+            double xn = x[n];
+            double tn = t[n];
+            double power = 1;
+
+            for (int k = 0; k <= maxDegree; ++k) {
+                powerSums[k] += power;
+                crossSums[k] += power * tn;
+                power *= xn;
+            }
+            for (int k = maxDegree + 1; k <= 2 * maxDegree; ++k) {
+                powerSums[k] += power;
+                power *= xn;
+            }
+        }
+    }
+
+    private static double horner(double[] w, int degree, double x) {
+        double result = w[degree];
+        for (int j = degree - 1; j >= 0; --j)
+            result = result * x + w[j];
+        return result;
+    }
+
+    /**
+     * Computes value of the last fitted polynomial.
+     * @param x the argument
+     * @return double the polynomial value
+     */
+    public double f(double x) {
+        checkFitted();
+        return horner(w, degree, x);
+    }
+
+    /**
+     * Copies coefficients of the last fitted polynomial.
+     * @param result the double[] at least degree() + 1 long
+     */
+    public void coefficients(double[] result) {
+        checkFitted();
+        System.arraycopy(w, 0, result, 0, degree + 1);
+    }
+
+    /**
+     * Getter for degree of the last fitted polynomial
+     * @return int the degree
+     */
+    public int degree() {
+        checkFitted();
+        return degree;
+    }
+
+    /**
+     * Getter for RMS error of the last fitted polynomial with validation data
+     * @return double the root-mean-square error
+     */
+    public double validationRMS() {
+        checkFitted();
+        return RMS;
+    }
+
+    private void checkFitted() {
+        if (degree < 0) throw new IllegalStateException("Nothing has been fitted yet.");
+    }
+}
@@ -0,0 +1,239 @@
+package polynomial_curve_fitting;
+
+import functions.Function;
+import functions.Polynomial;
+import polynomial_curve_fitting.utils.Error;
+import set.TrainingSetView;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static polynomial_curve_fitting.AbstractPCF.MAX_DEGREE;
+
+/**
+ * Polynomial Curve Fitting with K-fold cross-validation.
+ * Point x[n] belongs to fold n mod K, so folds depend on order of the points. Folds are of the same size
+ * up to one point and interleaved, so every fold of sorted vectors covers the whole range of x.
+ *
+ * Model selection, i.e. selection of the polynomial degree,
+ * is done by finding lowest mean root-mean-square error over all folds,
+ * where each fold is validation set for polynomial fitted with remaining K-1 folds.
+ * Optimal polynomial is then fitted with all points.
+ *
+ * Moments of every fold are accumulated in a single pass over the data, see MomentAccumulator.
+ * Training moments of fold k are total moments minus moments of fold k,
+ * and a single Cholesky decomposition extended degree by degree solves all degrees of a fold,
+ * so cross-validation costs K decompositions, never a refit from the data.
+ * Validation RMS errors of a fold are computed from residuals of its points in a single pass for all degrees,
+ * see ValidationScorer, since terms of the error computed from moments cancel each other for high degrees.
+ *
+ * @see polynomial_curve_fitting.PolynomialCurveFitting for vector definitions.
+ */
+public class KFoldPCF implements PolynomialCurveFitting {
+
+    static final int DEFAULT_FOLDS = 10;
+
+    private final int folds; // number of folds, K
+    private final double[] x; // vector
+    private final double[] t; // targets
+    private double[] w; // coefficients of polynomial that minimizes error
+
+    private double[] degreeToRMS; // maps polynomial degree to mean RMS error over folds, NaN if some fold can't be fitted
+
+    private Executor executor; // evaluates folds in parallel, null for sequential
+
+    /**
+     * Constructor for Polynomial Curve Fitting consisting of vectors x and t with 10-fold cross-validation.
+     * @param x the vector x
+     * @param t the vector t, corresponding targets.
+     */
+    public KFoldPCF(double[] x, double[] t) {
+        this(x, t, DEFAULT_FOLDS);
+    }
+
+    /**
+     * Constructor for Polynomial Curve Fitting consisting of vectors x and t with K-fold cross-validation.
+     * @param x the vector x
+     * @param t the vector t, corresponding targets.
+     * @param folds the int number of folds, K
+     */
+    public KFoldPCF(double[] x, double[] t, int folds) {
+        if (x.length != t.length)
+            throw new IllegalArgumentException("Vector and targets length are not same.");
+        if (folds < 2 || folds > x.length)
+            throw new IllegalArgumentException("Number of folds has to be in range [2, " + x.length + "].");
+
+        this.x = x;
+        this.t = t;
+        this.folds = folds;
+    }
+
+    /**
+     * Enables parallel evaluation of folds on the common ForkJoinPool.
+     * @return KFoldPCF this instance
+     */
+    public KFoldPCF parallel() {
+        return parallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Enables parallel evaluation of folds, every fold is evaluated as a separate task.
+     * @param executor the Executor running the tasks, null for sequential evaluation
+     * @return KFoldPCF this instance
+     */
+    public KFoldPCF parallel(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Find optimal polynomial coefficients,
+     * where polynomial(x) = sum(w[i] * x^i) from i=0 to M
+     */
+    private void setCoefficients() {
+        // accumulate moments and indices of points of all folds in a single pass
+        int[] foldSizes = new int[folds];
+        for (int n = 0; n < x.length; ++n)
+            ++foldSizes[fold(n)];
+
+        MomentAccumulator[] foldMoments = new MomentAccumulator[folds];
+        int[][] foldIndices = new int[folds][];
+        for (int k = 0; k < folds; ++k) {
+            foldMoments[k] = new MomentAccumulator(MAX_DEGREE);
+            foldIndices[k] = new int[foldSizes[k]];
+        }
+
+        int[] position = new int[folds];
+        for (int n = 0; n < x.length; ++n) {
+            int k = fold(n);
+            foldMoments[k].add(x[n], t[n]);
+            foldIndices[k][position[k]++] = n;
+        }
+
+        MomentAccumulator total = new MomentAccumulator(MAX_DEGREE);
+        for (MomentAccumulator moments : foldMoments)
+            total.merge(moments);
+
+        // evaluate all degrees for each fold, foldToRMS[k][degree] is NaN if matrix A is singular
+        double[][] foldToRMS = new double[folds][];
+        if (executor == null) {
+            for (int k = 0; k < folds; ++k)
+                foldToRMS[k] = evaluateFold(total, foldMoments[k], foldIndices[k]);
+        } else {
+            CompletableFuture<?>[] tasks = new CompletableFuture<?>[folds];
+            for (int k = 0; k < folds; ++k) {
+                final int fold = k;
+                tasks[k] = CompletableFuture.runAsync(() -> foldToRMS[fold] = evaluateFold(total, foldMoments[fold], foldIndices[fold]), executor);
+            }
+
+            try {
+                CompletableFuture.allOf(tasks).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+
+        // model comparison - mean RMS over folds, ties go to the higher degree
+        degreeToRMS = new double[MAX_DEGREE + 1];
+        double minimalRMS = Double.MAX_VALUE;
+        int bestDegree = -1;
+
+        for (int degree = 0; degree <= MAX_DEGREE; ++degree) {
+            double sum = 0;
+            for (int k = 0; k < folds; ++k)
+                sum += foldToRMS[k][degree];
+
+            double RMS = sum / folds;
+            degreeToRMS[degree] = RMS;
+            if (Double.isNaN(RMS)) continue;
+
+            if (RMS <= minimalRMS) {
+                minimalRMS = RMS;
+                bestDegree = degree;
+            }
+        }
+
+        if (bestDegree < 0)
+            throw new IllegalStateException("No polynomial degree can be fitted.");
+
+        // matrix A of all points may be singular even if matrices of training folds weren't, lower degree is used then
+        double[][] degreeToW = total.solveUpTo(bestDegree);
+        for (int degree = bestDegree; w == null && degree >= 0; --degree)
+            w = degreeToW[degree];
+        if (w == null)
+            throw new IllegalStateException("No polynomial degree can be fitted with all points.");
+    }
+
+    /**
+     * @param n the int index of point
+     * @return int the fold of the point
+     */
+    private int fold(int n) {
+        return n % folds;
+    }
+
+    /**
+     * Fits all polynomial degrees with training moments of given fold and computes their RMS errors with fold points.
+     * @param total the MomentAccumulator of all points
+     * @param fold the MomentAccumulator of the fold
+     * @param indices the int[] indices of points of the fold
+     * @return double[] the mapped polynomial degree to its RMS error, NaN if matrix A is singular
+     */
+    private double[] evaluateFold(MomentAccumulator total, MomentAccumulator fold, int[] indices) {
+        MomentAccumulator training = total.copy().subtract(fold);
+        double[][] candidates = training.solveUpTo(MAX_DEGREE);
+        return ValidationScorer.rootMeanSquare(candidates, TrainingSetView.of(x, t, indices), null);
+    }
+
+    /**
+     * Getter for number of folds
+     * @return int the K
+     */
+    public int folds() {
+        return folds;
+    }
+
+    @Override
+    public Function polynomial() {
+        return new Polynomial(coefficients());
+    }
+
+    @Override
+    public double[] coefficients() {
+        if (w == null) setCoefficients();
+        return w;
+    }
+
+    @Override
+    public int degree() {
+        return coefficients().length - 1;
+    }
+
+    @Override
+    public double[] x() {
+        return x;
+    }
+
+    @Override
+    public double[] t() {
+        return t;
+    }
+
+    @Override
+    public double errorRMS() {
+        return Error.rootMeanSquare(polynomial(), x, t);
+    }
+
+    @Override
+    public double[] getDegreeToRMS() {
+        return degreeToRMS;
+    }
+
+    @Override
+    public double[][] getDegreeLambdaToRMS() {
+        return null;
+    }
+}
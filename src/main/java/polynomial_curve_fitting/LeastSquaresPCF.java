@@ -1,11 +1,13 @@
 package polynomial_curve_fitting;
 
-import Jama.Matrix;
-import functions.Function;
-import functions.Polynomial;
-import polynomial_curve_fitting.utils.Error;
+import set.ChunkedTrainingSet;
+import set.CompressedTrainingSet;
+import set.SplitStrategy;
+import utils.IncrementalCholesky;
 
-import static java.lang.Math.pow;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Basic Polynomial Curve Fitting.
@@ -22,32 +24,24 @@ import static java.lang.Math.pow;
  *
  * Model selection, i.e. selection of the polynomial degree,
  * is done by finding lowest root-mean-square error with validation data for each degree.
+ * Evaluated degrees are limited by SearchPolicy.
  *
  * No regularization used to control the over-fitting.
  *
+ * Validation data are scored for all evaluated degrees in a single pass, which can run in parallel,
+ * see parallel(Executor).
+ *
  * @see polynomial_curve_fitting.PolynomialCurveFitting for vector definitions.
  * @author Ondrej Kratochvil
  */
-public class LeastSquaresPCF implements PolynomialCurveFitting {
+public class LeastSquaresPCF extends AbstractPCF {
 
     private static System.Logger LOGGER = System.getLogger(LeastSquaresPCF.class.getName());
 
-    static final int MAX_DEGREE = 50; // max polynomial degree
-    private static final float SPLIT_RATIO = 0.8f; // ratio of training and validation sets
-
-    private int size;
-    private double[] x; // vector
-    private double[] t; // targets
-    double[] w; // coefficients of polynomial that minimizes error
-
-    private int trainingSize; // size of trainingX and trainingT
-    private double[] trainingX; // fraction of x, without validation set
-    private double[] trainingT; // fraction of t, without validation set
-
-    double[] validationX;
-    double[] validationT;
+    private MomentAccumulator moments; // power and cross sums of training set
+    private IncrementalCholesky cholesky; // decomposition of matrix A of all solvable degrees
 
-    private double[] degreeToRMS; // maps polynomial degree to RMS error
+    private Executor executor; // runs model selection in parallel, null for sequential
 
     /**
      * Basic constructor for Polynomial Curve Fitting consisting of vectors x and t.
@@ -55,163 +49,155 @@ public class LeastSquaresPCF implements PolynomialCurveFitting {
      * @param t the vector t, corresponding targets.
      */
     public LeastSquaresPCF(double[] x, double[] t) {
-        this.x = x;
-        this.t = t;
-        this.size = x.length;
-        separateTrainingAndValidationSets();
+        super(x, t);
     }
 
     /**
-     * Splits vector x and t specified with const SPLIT_RATIO to training set and validation set.
-     * First half, i.e. training set, is copied to trainingX (trainingT) for vector x (t).
-     * Second half, i.e. validation set, is copied to validationX (validationT) for vector x (t).
+     * Streaming least squares fitting of a set consumed chunk by chunk, e.g. MappedTrainingSet, which doesn't fit in the heap.
+     * It is a StreamingPCF, not a LeastSquaresPCF: split strategy and search policy don't apply,
+     * every StreamingPCF.VALIDATION_STRIDE-th point is a validation point and all degrees are evaluated.
+     * @param set the ChunkedTrainingSet
+     * @return StreamingPCF the fitting, its x() and t() are null
      */
-    private void separateTrainingAndValidationSets() {
-        trainingSize = Math.round(x.length * SPLIT_RATIO);
-
-        // prepare training set
-        trainingX = new double[trainingSize];
-        trainingT = new double[trainingSize];
-        System.arraycopy(x, 0, trainingX, 0, trainingSize);
-        System.arraycopy(t, 0, trainingT, 0, trainingSize);
-
-        // prepare validation set
-        validationX = new double[size - trainingSize];
-        validationT = new double[size - trainingSize];
-        System.arraycopy(x, 0, validationX, 0, size - trainingSize);
-        System.arraycopy(t, 0, validationT, 0, size - trainingSize);
+    public static StreamingPCF fitStreaming(ChunkedTrainingSet set) {
+        return new StreamingPCF().accept(set);
     }
 
     /**
-     * Find optimal polynomial coefficients,
-     * where polynomial(x) = sum(w[i] * x^i) from i=0 to M
+     * Weighted least squares fitting of compressed sets, the fit costs O(bins) instead of O(N).
+     * Training and validation sets should be compressed separately, e.g. from views of SplitStrategy.
+     * @param training the CompressedTrainingSet used to fit coefficients
+     * @param validation the CompressedTrainingSet used for model selection
+     * @return PolynomialCurveFitting the fitting, its x() and t() are null
      */
-    void setCoefficients() {
-        degreeToRMS = new double[MAX_DEGREE + 1];
-        double minimalRMS = Double.MAX_VALUE;
-        double RMS;
-        double[] tempW;
-        Matrix lhs, rhs, ans;
-
-        // model comparison - iterate over all possible polynomial degrees
-        for (int degree = 0; degree <= MAX_DEGREE; ++degree) {
-
-            // solve equation
-            // sum(A[i][j]*w[j]) from j=0 to M = T[i]
-            lhs = getA(degree);
-            rhs = getT(degree);
-
-            try {
-                ans = lhs.solve(rhs);
-            } catch (RuntimeException e) {
-                if (e.getMessage().equals("Matrix is singular.")) {
-                    LOGGER.log(System.Logger.Level.ERROR, e.getMessage());
-                    continue;
-                } else {
-                    LOGGER.log(System.Logger.Level.ERROR, "Unknown exception: " + e.getMessage());
-                    throw new RuntimeException(e.getMessage());
-                }
-            }
-
-            // extract temporary vector w
-            tempW = new double[degree + 1];
-            for (int m = 0; m <= degree; ++m)
-                tempW[m] = ans.get(m, 0);
-
-            // compute RMS error, use validation data to compute the root-mean-square error
-            RMS = Error.rootMeanSquare(new Polynomial(tempW), validationX, validationT);
-            degreeToRMS[degree] = RMS;
+    public static PolynomialCurveFitting fit(CompressedTrainingSet training, CompressedTrainingSet validation) {
+        return new StreamingPCF().accept(training, validation);
+    }
 
-            // updates vector w if RMS is lower than the previous one found
-            if (RMS <= minimalRMS) {
-                minimalRMS = RMS;
-                w = tempW;
-            }
-        }
+    @Override
+    public LeastSquaresPCF split(SplitStrategy split) {
+        super.split(split);
+        moments = null;
+        return this;
     }
 
     /**
-     * Creates matrix A, where A[i][j] = sum(x[n])^(i+j) from n=1 to N
-     * vector x=(x[1], x[2], ... x[N])
-     * @param degree the int polynomial degree
-     * @return double[][] the matrix A
+     * Enables parallel model selection on the common ForkJoinPool.
+     * @return LeastSquaresPCF this instance
      */
-    Matrix getA(int degree) {
-        double[][] A = new double[degree + 1][degree + 1];
-
-        for (int i = 0; i <= degree; ++i) {
-            for (int j = 0; j <= degree; ++j) {
-                double sum = 0;
-                int power = i + j;
-
-                for (int n = 0; n < trainingSize; ++n)
-                    sum += pow(trainingX[n], power);
-
-                A[i][j] = sum;
-            }
-        }
-        return new Matrix(A);
+    public LeastSquaresPCF parallel() {
+        return parallel(ForkJoinPool.commonPool());
     }
 
     /**
-     * Creates vector T, where T[i] = sum(x[n]^i * t[n]) from n=1 to N,
-     * vectors x=(x[1], x[2], ... x[N]), t=(t[1], t[2], ... t[N])
-     * @param degree the int polynomial degree
-     * @return double[] the vector T
+     * Enables parallel model selection, chunks of validation data are scored as separate tasks.
+     * The result does not depend on the executor, partial sums are added in chunk order.
+     * @param executor the Executor running the tasks, null for sequential model selection
+     * @return LeastSquaresPCF this instance
      */
-    Matrix getT(int degree) {
-        double[] T = new double[degree + 1];
-
-        for (int i = 0; i <= degree; ++i) {
-            double sum = 0;
+    public LeastSquaresPCF parallel(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
 
-            for (int n = 0; n < trainingSize; ++n)
-                sum += pow(trainingX[n], i) * trainingT[n];
+    @Override
+    void setCoefficients() {
+        int maxDegree = policy.maxDegree();
+        if (moments == null || moments.maxDegree() < maxDegree) setMoments();
+        decompose(maxDegree);
+
+        degreeToRMS = new double[maxDegree + 1];
+        double[][] degreeToW = new double[maxDegree + 1][];
+        SearchPolicy.Search search = policy.start();
+
+        // model comparison - evaluate polynomial degrees in waves, all at once if the search can't stop early
+        int wave = policy.isExhaustive() ? maxDegree + 1 : executor == null ? 1 : parallelism();
+
+        for (int from = 0; search.proceed(from); from += wave) {
+            int to = Math.min(from + wave - 1, maxDegree);
+            evaluateDegrees(from, to, degreeToW);
+
+            // degrees evaluated beyond the end of search are discarded, so the result doesn't depend on wave size
+            for (int degree = from; degree <= to; ++degree) {
+                if (degree > from && !search.proceed(degree)) {
+                    for (int d = degree; d <= to; ++d) {
+                        degreeToW[d] = null;
+                        degreeToRMS[d] = 0;
+                    }
+                    break;
+                }
+                search.record(degree, degreeToW[degree] == null ? Double.NaN : degreeToRMS[degree]);
+            }
+        }
+        evaluatedDegrees = search.evaluated();
 
-            T[i] = sum;
+        // updates vector w if RMS is lower than the previous one found, ties go to the higher degree
+        double minimalRMS = Double.MAX_VALUE;
+        for (int degree = 0; degree <= maxDegree; ++degree) {
+            if (degreeToW[degree] != null && degreeToRMS[degree] <= minimalRMS) {
+                minimalRMS = degreeToRMS[degree];
+                w = degreeToW[degree];
+            }
         }
-        return new Matrix(T, degree + 1);
-    }
 
-    @Override
-    public Function polynomial() {
-        if (w == null) setCoefficients();
-        return new Polynomial(w);
+        if (w == null) throw new IllegalStateException("No polynomial degree can be fitted.");
     }
 
-    @Override
-    public double[] coefficients() {
-        if (w == null) setCoefficients();
-        return w;
-    }
+    /**
+     * Evaluates polynomial degrees from given range, validation data are scored in parallel if executor is set.
+     * All degrees of the range are solved first and then scored together in a single pass, see ValidationScorer.
+     * @param from the int first polynomial degree
+     * @param to the int last polynomial degree
+     * @param degreeToW the double[][] mapping polynomial degree to its coefficients
+     */
+    private void evaluateDegrees(int from, int to, double[][] degreeToW) {
+        // solve equation
+        // sum(A[i][j]*w[j]) from j=0 to M = T[i], degreeToW[degree] stays null if matrix A is not positive definite
+        for (int degree = from; degree <= to && degree < cholesky.size(); ++degree) {
+            double[] tempW = new double[degree + 1];
+            cholesky.solve(degree + 1, tempW);
+            degreeToW[degree] = tempW;
+        }
 
-    @Override
-    public int degree() {
-        return ((Polynomial) polynomial()).degree();
+        // compute RMS error, use validation data to compute the root-mean-square error
+        double[][] candidates = Arrays.copyOfRange(degreeToW, from, to + 1);
+        double[] RMS = ValidationScorer.rootMeanSquare(candidates, validation, executor);
+        for (int degree = from; degree <= to; ++degree)
+            if (degreeToW[degree] != null) degreeToRMS[degree] = RMS[degree - from];
     }
 
-    @Override
-    public double[] x() {
-        return x;
+    /**
+     * @return int the number of degrees evaluated at once by executor
+     */
+    private int parallelism() {
+        if (executor instanceof ForkJoinPool) return ((ForkJoinPool) executor).getParallelism();
+        return Runtime.getRuntime().availableProcessors();
     }
 
-    @Override
-    public double[] t() {
-        return t;
-    }
+    /**
+     * Decomposes matrix A of the highest solvable degree up to maxDegree.
+     * Matrix A of degree d+1 extends matrix A of degree d, so the decomposition is extended row by row
+     * and its leading blocks solve all lower degrees.
+     * @param maxDegree the int max polynomial degree
+     */
+    private void decompose(int maxDegree) {
+        if (cholesky == null || cholesky.capacity() < maxDegree + 1) cholesky = new IncrementalCholesky(maxDegree + 1);
+        else cholesky.reset();
 
-    @Override
-    public double errorRMS() {
-        return Error.rootMeanSquare(polynomial(), x, t);
-    }
+        while (cholesky.size() <= maxDegree && moments.extend(cholesky));
 
-    @Override
-    public double[] getDegreeToRMS() {
-        return degreeToRMS;
+        if (cholesky.size() <= maxDegree)
+            LOGGER.log(System.Logger.Level.ERROR, "Matrix of degree " + cholesky.size() + " is not positive definite, higher degrees are skipped.");
     }
 
-    @Override
-    public double[][] getDegreeLambdaToRMS() {
-        return null;
+    /**
+     * Computes all power sums sum(x[n]^k) for k=0..2*M and cross sums sum(x[n]^k * t[n])
+     * for k=0..M in a single pass over the training set, where M is max degree of the search policy.
+     * Powers are computed by running multiplication, so no pow() is needed.
+     * Matrix A is a Hankel matrix, i.e. A[i][j] depends only on i+j,
+     * hence these 2*M+1 power sums are enough to build A and T for every degree.
+     */
+    void setMoments() {
+        moments = new MomentAccumulator(policy.maxDegree()).add(training);
     }
 }
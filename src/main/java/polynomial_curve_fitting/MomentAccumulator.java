@@ -0,0 +1,348 @@
+package polynomial_curve_fitting;
+
+import Jama.Matrix;
+import set.ChunkedTrainingSet;
+import set.CompressedTrainingSet;
+import utils.IncrementalCholesky;
+
+import static java.lang.Math.*;
+
+/**
+ * Sufficient statistics for least squares polynomial fitting up to given max degree.
+ *
+ * powerSums[k] = sum(x[n]^k) from n=1 to N, k = 0..2*M
+ * crossSums[k] = sum(x[n]^k * t[n]) from n=1 to N, k = 0..M
+ * targetSquares = sum(t[n]^2) from n=1 to N
+ *
+ * Points are consumed one at a time or in chunks and are not stored, so memory doesn't depend on N.
+ * Accumulators of disjoint parts of data can be merged, e.g. when each thread or file has its own accumulator.
+ * Accumulator itself is not thread-safe.
+ */
+public class MomentAccumulator {
+
+    private static System.Logger LOGGER = System.getLogger(MomentAccumulator.class.getName());
+
+    private static final int ROUNDING_FACTOR = 4; // safety factor of rounding error estimate
+
+    private final int maxDegree;
+    private long count; // number of accumulated points
+    private final double[] powerSums;
+    private final double[] crossSums;
+    private double targetSquares;
+
+    /**
+     * @param maxDegree the int max polynomial degree that can be solved with accumulated moments
+     */
+    public MomentAccumulator(int maxDegree) {
+        if (maxDegree < 0) throw new IllegalArgumentException("Max degree can't be negative.");
+
+        this.maxDegree = maxDegree;
+        this.powerSums = new double[2 * maxDegree + 1];
+        this.crossSums = new double[maxDegree + 1];
+    }
+
+    /**
+     * Creates accumulator from already computed moments, arrays are copied.
+     */
+    MomentAccumulator(int maxDegree, long count, double[] powerSums, double[] crossSums, double targetSquares) {
+        this(maxDegree);
+        System.arraycopy(powerSums, 0, this.powerSums, 0, this.powerSums.length);
+        System.arraycopy(crossSums, 0, this.crossSums, 0, this.crossSums.length);
+        this.targetSquares = targetSquares;
+        this.count = count;
+    }
+
+    /**
+     * Adds a single point.
+     * @param x the double point
+     * @param t the double corresponding target
+     * @return MomentAccumulator this instance
+     */
+    public MomentAccumulator add(double x, double t) {
+        double power = 1;
+
+        for (int k = 0; k <= maxDegree; ++k) {
+            powerSums[k] += power;
+            crossSums[k] += power * t;
+            power *= x;
+        }
+        for (int k = maxDegree + 1; k <= 2 * maxDegree; ++k) {
+            powerSums[k] += power;
+            power *= x;
+        }
+        targetSquares += t * t;
+        ++count;
+        return this;
+    }
+
+    /**
+     * Adds a point representing weight points with the same x and t, i.e. weighted least squares.
+     * @param x the double point
+     * @param t the double corresponding target
+     * @param weight the long number of represented points
+     * @return MomentAccumulator this instance
+     */
+    public MomentAccumulator add(double x, double t, long weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight can't be negative.");
+
+        double power = weight;
+        for (int k = 0; k <= maxDegree; ++k) {
+            powerSums[k] += power;
+            crossSums[k] += power * t;
+            power *= x;
+        }
+        for (int k = maxDegree + 1; k <= 2 * maxDegree; ++k) {
+            powerSums[k] += power;
+            power *= x;
+        }
+        targetSquares += weight * t * t;
+        count += weight;
+        return this;
+    }
+
+    /**
+     * Adds all points of vector x with corresponding targets t.
+     * @return MomentAccumulator this instance
+     */
+    public MomentAccumulator add(double[] x, double[] t) {
+        return add(x, t, 0, x.length);
+    }
+
+    /**
+     * Adds chunk of points x[offset], ... x[offset + length - 1] with corresponding targets.
+     * @return MomentAccumulator this instance
+     */
+    public MomentAccumulator add(double[] x, double[] t, int offset, int length) {
+        if (x.length != t.length)
+            throw new IllegalArgumentException("Vector and targets length are not same.");
+
+        for (int n = offset; n < offset + length; ++n)
+            add(x[n], t[n]);
+        return this;
+    }
+
+    /**
+     * Adds all points of a set chunk by chunk, e.g. TrainingSetView, nothing is copied for array-backed sets.
+     * @param set the ChunkedTrainingSet
+     * @return MomentAccumulator this instance
+     */
+    public MomentAccumulator add(ChunkedTrainingSet set) {
+        set.forEachChunk(this::add);
+        return this;
+    }
+
+    /**
+     * Adds weighted representatives of a compressed set and sum of squares of targets within its bins,
+     * so sumOfSquares(w) is the error over all compressed points moved to their bin means.
+     * @param set the CompressedTrainingSet
+     * @return MomentAccumulator this instance
+     */
+    public MomentAccumulator add(CompressedTrainingSet set) {
+        double[] x = set.vector(), t = set.targets();
+        long[] weights = set.weights();
+
+        for (int i = 0; i < x.length; ++i)
+            add(x[i], t[i], weights[i]);
+        targetSquares += set.withinSquares();
+        return this;
+    }
+
+    /**
+     * Adds moments of other accumulator to this one.
+     * @param other the MomentAccumulator with the same max degree
+     * @return MomentAccumulator this instance
+     */
+    public MomentAccumulator merge(MomentAccumulator other) {
+        if (other.maxDegree != maxDegree)
+            throw new IllegalArgumentException("Accumulators with different max degree can't be merged.");
+
+        for (int k = 0; k < powerSums.length; ++k)
+            powerSums[k] += other.powerSums[k];
+        for (int k = 0; k < crossSums.length; ++k)
+            crossSums[k] += other.crossSums[k];
+        targetSquares += other.targetSquares;
+        count += other.count;
+        return this;
+    }
+
+    /**
+     * Removes moments of other accumulator from this one,
+     * other accumulator has to contain a subset of points accumulated in this one.
+     * @param other the MomentAccumulator with the same max degree
+     * @return MomentAccumulator this instance
+     */
+    public MomentAccumulator subtract(MomentAccumulator other) {
+        if (other.maxDegree != maxDegree)
+            throw new IllegalArgumentException("Accumulators with different max degree can't be subtracted.");
+        if (other.count > count)
+            throw new IllegalArgumentException("Subtracted accumulator contains more points.");
+
+        for (int k = 0; k < powerSums.length; ++k)
+            powerSums[k] -= other.powerSums[k];
+        for (int k = 0; k < crossSums.length; ++k)
+            crossSums[k] -= other.crossSums[k];
+        targetSquares -= other.targetSquares;
+        count -= other.count;
+        return this;
+    }
+
+    /**
+     * Creates copy of this accumulator.
+     * @return MomentAccumulator the copy
+     */
+    public MomentAccumulator copy() {
+        return new MomentAccumulator(maxDegree).merge(this);
+    }
+
+    /**
+     * Creates matrix A, where A[i][j] = sum(x[n])^(i+j) from n=1 to N
+     * @param degree the int polynomial degree
+     * @return Matrix the matrix A
+     */
+    public Matrix getA(int degree) {
+        checkDegree(degree);
+        double[][] A = new double[degree + 1][degree + 1];
+
+        for (int i = 0; i <= degree; ++i) {
+            for (int j = 0; j <= degree; ++j)
+                A[i][j] = powerSums[i + j];
+        }
+        return new Matrix(A);
+    }
+
+    /**
+     * Creates vector T, where T[i] = sum(x[n]^i * t[n]) from n=1 to N
+     * @param degree the int polynomial degree
+     * @return Matrix the vector T
+     */
+    public Matrix getT(int degree) {
+        checkDegree(degree);
+        double[] T = new double[degree + 1];
+        System.arraycopy(crossSums, 0, T, 0, degree + 1);
+        return new Matrix(T, degree + 1);
+    }
+
+    /**
+     * Solves equation sum(A[i][j]*w[j]) from j=0 to M = T[i] for given degree with Cholesky decomposition.
+     * @param degree the int polynomial degree
+     * @return double[] the vector w, null if matrix A is not numerically positive definite
+     */
+    public double[] solve(int degree) {
+        checkDegree(degree);
+        IncrementalCholesky cholesky = new IncrementalCholesky(degree + 1);
+
+        while (cholesky.size() <= degree) {
+            if (!extend(cholesky)) {
+                LOGGER.log(System.Logger.Level.ERROR, "Matrix of degree " + cholesky.size() + " is not positive definite.");
+                return null;
+            }
+        }
+
+        double[] w = new double[degree + 1];
+        cholesky.solve(degree + 1, w);
+        return w;
+    }
+
+    /**
+     * Solves equations of all degrees from 0 to maxDegree with a single Cholesky decomposition,
+     * which is extended degree by degree, so the sweep costs O(M^3) instead of O(M^4) of solve(degree) per degree.
+     * @param maxDegree the int max polynomial degree
+     * @return double[][] the vector w of every degree, null from the first degree where matrix A
+     * is not numerically positive definite
+     */
+    public double[][] solveUpTo(int maxDegree) {
+        checkDegree(maxDegree);
+        IncrementalCholesky cholesky = new IncrementalCholesky(maxDegree + 1);
+        double[][] degreeToW = new double[maxDegree + 1][];
+
+        for (int degree = 0; degree <= maxDegree; ++degree) {
+            if (!extend(cholesky)) {
+                LOGGER.log(System.Logger.Level.ERROR, "Matrix of degree " + degree + " is not positive definite, higher degrees are skipped.");
+                break;
+            }
+            degreeToW[degree] = new double[degree + 1];
+            cholesky.solve(degree + 1, degreeToW[degree]);
+        }
+        return degreeToW;
+    }
+
+    /**
+     * Extends Cholesky decomposition of matrix A and vector T by the next degree, i.e. by row d = cholesky.size().
+     * @param cholesky the IncrementalCholesky of matrix A of degree d-1
+     * @return boolean true if extended, false if matrix A of degree d is not numerically positive definite
+     */
+    boolean extend(IncrementalCholesky cholesky) {
+        int d = cholesky.size();
+        checkDegree(d);
+        return cholesky.extend(powerSums, d, crossSums[d]);
+    }
+
+    /**
+     * Computes sum-of-squares error of polynomial w over accumulated points without visiting them,
+     * sum((y(x[n], w) - t[n])^2) = sum(t[n]^2) - 2 * sum(w[i] * T[i]) + sum(w[i] * A[i][j] * w[j]).
+     * The terms cancel each other, so the result is never reported below its rounding error bound,
+     * see roundingError(w). Badly conditioned polynomials therefore can't look better than they are,
+     * but errors near the bound carry no information, so model selection evaluates residuals, see ValidationScorer.
+     * @param w the double[] polynomial coefficients
+     * @return double the sum-of-squares error
+     */
+    public double sumOfSquares(double[] w) {
+        checkDegree(w.length - 1);
+        double sum = targetSquares;
+
+        for (int i = 0; i < w.length; ++i) {
+            double Aw = 0;
+            for (int j = 0; j < w.length; ++j)
+                Aw += powerSums[i + j] * w[j];
+
+            sum += w[i] * (Aw - 2 * crossSums[i]);
+        }
+        return max(sum, roundingError(w));
+    }
+
+    /**
+     * Estimates rounding error of sumOfSquares(w).
+     * By Cauchy-Schwarz inequality |A[i][j]| <= sqrt(A[i][i] * A[j][j]) and |T[i]| <= sqrt(A[i][i] * sum(t[n]^2)),
+     * so all terms of sumOfSquares(w) are bounded by (sqrt(sum(t[n]^2)) + sum(|w[i]| * sqrt(A[i][i])))^2.
+     * @param w the double[] polynomial coefficients
+     * @return double the rounding error estimate
+     */
+    double roundingError(double[] w) {
+        double scale = sqrt(targetSquares);
+        for (int i = 0; i < w.length; ++i)
+            scale += abs(w[i]) * sqrt(powerSums[2 * i]);
+
+        return ROUNDING_FACTOR * (w.length + 1) * ulp(1.0) * scale * scale;
+    }
+
+    /**
+     * Computes the root-mean-square error of polynomial w over accumulated points,
+     * defined the same way as polynomial_curve_fitting.utils.Error.rootMeanSquare().
+     * @param w the double[] polynomial coefficients
+     * @return double the root-mean-square error
+     */
+    public double rootMeanSquare(double[] w) {
+        return sqrt(2 * sumOfSquares(w) / count);
+    }
+
+    /**
+     * @param k the int power
+     * @return double the cross sum sum(x[n]^k * t[n]) from n=1 to N
+     */
+    double crossSum(int k) {
+        return crossSums[k];
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public int maxDegree() {
+        return maxDegree;
+    }
+
+    private void checkDegree(int degree) {
+        if (degree < 0 || degree > maxDegree)
+            throw new IllegalArgumentException("Degree " + degree + " is out of accumulated range [0, " + maxDegree + "].");
+    }
+}
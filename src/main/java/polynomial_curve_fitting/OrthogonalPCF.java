@@ -0,0 +1,148 @@
+package polynomial_curve_fitting;
+
+import functions.Function;
+import functions.OrthogonalPolynomial;
+
+import java.util.Arrays;
+
+import static java.lang.Math.sqrt;
+
+/**
+ * Polynomial Curve Fitting with polynomials orthogonal over the training set (Forsythe method).
+ * Splits available data to training set and validation set.
+ *
+ * Orthonormal polynomials q[k] are built with three-term recurrence (Stieltjes procedure)
+ * r(x) = (x - alpha[k]) * q[k](x) - beta[k] * q[k-1](x), q[k+1](x) = r(x) / beta[k+1],
+ * where alpha[k] = sum(x[n] * q[k](x[n])^2) and beta[k+1] = sqrt(sum(r(x[n])^2)) from n=1 to N.
+ *
+ * Least squares polynomial of degree M is then y(x) = sum(c[k] * q[k](x)) from k=0 to M,
+ * where c[k] = sum(t[n] * q[k](x[n])) from n=1 to N.
+ * Coefficients c[k] don't change when the degree grows, so every additional degree costs O(N)
+ * and the whole model selection is O(N*M) without any matrix to solve.
+ *
+ * Model selection, i.e. selection of the polynomial degree,
+ * is done by finding lowest root-mean-square error with validation data for each degree.
+ * Evaluated degrees are limited by SearchPolicy,
+ * the sweep also stops when a new polynomial q[k+1] is numerically zero over the training set.
+ *
+ * polynomial() evaluates the orthogonal form, coefficients() converts it to monomial form,
+ * which is ill-conditioned for high degrees on wide domains.
+ *
+ * @see polynomial_curve_fitting.PolynomialCurveFitting for vector definitions.
+ */
+public class OrthogonalPCF extends AbstractPCF {
+
+    private static System.Logger LOGGER = System.getLogger(OrthogonalPCF.class.getName());
+
+    private static final double EPSILON = 1e-12; // relative norm of r(x) considered to be zero
+
+    private OrthogonalPolynomial orthogonalPolynomial; // polynomial that minimizes error in orthogonal form
+
+    /**
+     * Basic constructor for Polynomial Curve Fitting consisting of vectors x and t.
+     * @param x the vector x
+     * @param t the vector t, corresponding targets.
+     */
+    public OrthogonalPCF(double[] x, double[] t) {
+        super(x, t);
+    }
+
+    @Override
+    void setCoefficients() {
+        int maxDegree = policy.maxDegree();
+        degreeToRMS = new double[maxDegree + 1];
+        SearchPolicy.Search search = policy.start();
+        int trainingSize = training.size(), validationSize = validation.size();
+
+        // views are gathered once, the recurrence reads every point once per degree
+        double[] trainingX = new double[trainingSize], trainingT = new double[trainingSize];
+        double[] validationX = new double[validationSize], validationT = new double[validationSize];
+        training.copyTo(trainingX, trainingT);
+        validation.copyTo(validationX, validationT);
+
+        // values of q[k-1] and q[k] in training and validation points
+        double[] qPrev = new double[trainingSize], q = new double[trainingSize];
+        double[] vPrev = new double[validationSize], v = new double[validationSize];
+
+        double[] prediction = new double[validationSize]; // fitted polynomial in validation points
+
+        double[] alpha = new double[maxDegree];
+        double[] beta = new double[maxDegree + 1];
+        double[] c = new double[maxDegree + 1];
+
+        // q[0] is constant 1 / sqrt(N)
+        double q0 = 1 / sqrt(trainingSize);
+        Arrays.fill(q, q0);
+        Arrays.fill(v, q0);
+
+        double minimalRMS = Double.MAX_VALUE;
+        int bestDegree = 0;
+
+        for (int degree = 0; degree <= maxDegree; ++degree) {
+
+            // add c[k] * q[k] to the fitted polynomial
+            for (int n = 0; n < trainingSize; ++n)
+                c[degree] += trainingT[n] * q[n];
+
+            // compute RMS error, use validation data to compute the root-mean-square error
+            double sum = 0;
+            for (int n = 0; n < validationSize; ++n) {
+                prediction[n] += c[degree] * v[n];
+                double e = prediction[n] - validationT[n];
+                sum += e * e;
+            }
+            double RMS = sqrt(2 * sum / validationSize);
+            degreeToRMS[degree] = RMS;
+            search.record(degree, RMS);
+
+            // updates best degree if RMS is lower than the previous one found
+            if (RMS <= minimalRMS) {
+                minimalRMS = RMS;
+                bestDegree = degree;
+            }
+
+            if (!search.proceed(degree + 1)) break;
+
+            // three-term recurrence for q[k+1]
+            double a = 0, b = beta[degree], norm = 0, xqNorm = 0;
+            for (int n = 0; n < trainingSize; ++n) {
+                double xq = trainingX[n] * q[n];
+                a += xq * q[n];
+                xqNorm += xq * xq;
+            }
+            for (int n = 0; n < trainingSize; ++n) {
+                double r = (trainingX[n] - a) * q[n] - b * qPrev[n];
+                qPrev[n] = r;
+                norm += r * r;
+            }
+            norm = sqrt(norm);
+
+            if (norm <= EPSILON * sqrt(xqNorm)) {
+                LOGGER.log(System.Logger.Level.ERROR, "Orthogonal polynomial of degree " + (degree + 1) + " vanishes on training set.");
+                break;
+            }
+
+            double[] swap = qPrev; qPrev = q; q = swap;
+            for (int n = 0; n < trainingSize; ++n) q[n] /= norm;
+
+            for (int n = 0; n < validationSize; ++n) {
+                double r = ((validationX[n] - a) * v[n] - b * vPrev[n]) / norm;
+                vPrev[n] = v[n];
+                v[n] = r;
+            }
+
+            alpha[degree] = a;
+            beta[degree + 1] = norm;
+        }
+
+        evaluatedDegrees = search.evaluated();
+        orthogonalPolynomial = new OrthogonalPolynomial(q0, alpha, beta, Arrays.copyOf(c, bestDegree + 1));
+        w = orthogonalPolynomial.toPolynomial().coefficients();
+    }
+
+    @Override
+    public Function polynomial() {
+        if (w == null) setCoefficients();
+        return orthogonalPolynomial;
+    }
+}
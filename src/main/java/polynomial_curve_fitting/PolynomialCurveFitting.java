@@ -64,7 +64,7 @@ public interface PolynomialCurveFitting {
 
     /**
      * Getter for degreeLambdaToRMS
-     * double[i][j], where i is degree and j is negation of ln(λ)
+     * double[i][j], where i is degree and j is negation of ln(λ / s), see RegularizedPCF for scale s
      * @return double[][] the mapped polynomial degree to its RMS error
      */
     double[][] getDegreeLambdaToRMS();
@@ -0,0 +1,116 @@
+package polynomial_curve_fitting;
+
+import Jama.EigenvalueDecomposition;
+import Jama.Matrix;
+
+import static java.lang.Math.exp;
+import static java.lang.Math.max;
+
+/**
+ * Regularized (ridge) Polynomial Curve Fitting.
+ * Splits available data to training set and validation set.
+ *
+ * Regularized least squares method minimizes error function
+ * E(w) = 1/2 * sum( ((y(x[n], w) - t[n])^2 ) from n=1 to N + lambda/2 * sum(w[j]^2) from j=0 to M,
+ * which leads to equation sum((A[i][j] + lambda*I[i][j]) * w[j]) from j=0 to M = T[i].
+ *
+ * Model selection, i.e. selection of the polynomial degree and lambda,
+ * is done by finding lowest root-mean-square error with validation data
+ * for each degree and each ln(lambda / s) = 0, -1, ... -(LAMBDA_STEPS-1),
+ * where s = trace(A) / (M+1) is the mean eigenvalue of matrix A of the degree,
+ * so the grid has the same meaning for any range of data.
+ * Evaluated degrees are limited by SearchPolicy, the best RMS error over all lambda counts for a degree.
+ *
+ * Matrix A of each degree is decomposed only once, A = V * D * V', where D is diagonal,
+ * so w = V * (D + lambda*I)^-1 * V' * T costs O(M^2) for every lambda.
+ * Validation errors of all lambda of a degree are computed from residuals in a single pass, see ValidationScorer,
+ * since errors computed from validation moments cancel each other for high degrees on wide domains.
+ *
+ * @see polynomial_curve_fitting.PolynomialCurveFitting for vector definitions.
+ */
+public class RegularizedPCF extends AbstractPCF {
+
+    static final int LAMBDA_STEPS = 40; // number of ln(lambda) values in the grid
+
+    private double[][] degreeLambdaToRMS; // maps polynomial degree and negation of ln(lambda / s) to RMS error
+    private double lambda; // lambda of polynomial that minimizes error
+
+    /**
+     * Basic constructor for Polynomial Curve Fitting consisting of vectors x and t.
+     * @param x the vector x
+     * @param t the vector t, corresponding targets.
+     */
+    public RegularizedPCF(double[] x, double[] t) {
+        super(x, t);
+    }
+
+    @Override
+    void setCoefficients() {
+        int maxDegree = policy.maxDegree();
+        MomentAccumulator training = new MomentAccumulator(maxDegree).add(this.training);
+
+        degreeToRMS = new double[maxDegree + 1];
+        degreeLambdaToRMS = new double[maxDegree + 1][LAMBDA_STEPS];
+        SearchPolicy.Search search = policy.start();
+        double minimalRMS = Double.MAX_VALUE;
+
+        // model comparison - iterate over all possible polynomial degrees and lambda
+        for (int degree = 0; search.proceed(degree); ++degree) {
+            Matrix T = training.getT(degree);
+            Matrix A = training.getA(degree);
+            EigenvalueDecomposition eig = A.eig(); // A is symmetric
+            double scale = A.trace() / (degree + 1);
+
+            double[][] V = eig.getV().getArray();
+            double[] d = eig.getRealEigenvalues();
+            double[] z = eig.getV().transpose().times(T).getRowPackedCopy(); // z = V' * T
+            double[][] candidates = new double[LAMBDA_STEPS][degree + 1];
+
+            // w = V * (D + lambda*I)^-1 * z, A is positive semi-definite, so rounding errors in D are cut off
+            for (int j = 0; j < LAMBDA_STEPS; ++j) {
+                double lambda = scale * exp(-j);
+                for (int i = 0; i <= degree; ++i) {
+                    double sum = 0;
+                    for (int k = 0; k <= degree; ++k)
+                        sum += V[i][k] * z[k] / (max(d[k], 0) + lambda);
+                    candidates[j][i] = sum;
+                }
+            }
+
+            // compute RMS error, use validation data to compute the root-mean-square error of all lambda at once
+            double[] RMS = ValidationScorer.rootMeanSquare(candidates, validation, null);
+            degreeToRMS[degree] = Double.MAX_VALUE;
+
+            for (int j = 0; j < LAMBDA_STEPS; ++j) {
+                degreeLambdaToRMS[degree][j] = RMS[j];
+                degreeToRMS[degree] = Math.min(degreeToRMS[degree], RMS[j]);
+
+                // updates best model if RMS is lower than the previous one found
+                if (RMS[j] <= minimalRMS) {
+                    minimalRMS = RMS[j];
+                    this.lambda = scale * exp(-j);
+                    w = candidates[j];
+                }
+            }
+            search.record(degree, degreeToRMS[degree]);
+        }
+        evaluatedDegrees = search.evaluated();
+
+        if (w == null)
+            throw new IllegalStateException("No polynomial degree and lambda can be fitted, all validation errors are NaN.");
+    }
+
+    /**
+     * Getter for lambda of optimal polynomial
+     * @return double the lambda
+     */
+    public double lambda() {
+        if (w == null) setCoefficients();
+        return lambda;
+    }
+
+    @Override
+    public double[][] getDegreeLambdaToRMS() {
+        return degreeLambdaToRMS;
+    }
+}
@@ -0,0 +1,128 @@
+package polynomial_curve_fitting;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static polynomial_curve_fitting.AbstractPCF.MAX_DEGREE;
+
+/**
+ * Policy of model selection, i.e. which polynomial degrees are evaluated.
+ * Degrees are evaluated in increasing order from 0 until one of the limits is reached:
+ * - max degree
+ * - patience, i.e. number of consecutive degrees without improvement of validation RMS error
+ * - relative improvement, RMS error is improved only if it is lower than (1 - minImprovement) * best RMS error,
+ *   it only decides what counts as improvement for patience, so it has no effect unless patience is set
+ * - time budget of the whole model selection
+ *
+ * Degree 0 is always evaluated, even if the time budget runs out before, so every policy yields a fit.
+ * Default policy evaluates all degrees from 0 to MAX_DEGREE.
+ */
+public class SearchPolicy {
+
+    private int maxDegree = MAX_DEGREE;
+    private int patience = Integer.MAX_VALUE;
+    private double minImprovement = 0;
+    private long timeBudget = Long.MAX_VALUE; // in nanoseconds
+
+    public SearchPolicy maxDegree(int maxDegree) {
+        if (maxDegree < 0) throw new IllegalArgumentException("Max degree can't be negative.");
+        this.maxDegree = maxDegree;
+        return this;
+    }
+
+    public SearchPolicy patience(int patience) {
+        if (patience < 1) throw new IllegalArgumentException("Patience has to be positive.");
+        this.patience = patience;
+        return this;
+    }
+
+    /**
+     * Sets relative improvement of RMS error needed to reset patience, it has no effect unless patience is set.
+     * @param minImprovement the double in range [0, 1), 0 by default
+     * @return SearchPolicy this instance
+     */
+    public SearchPolicy minImprovement(double minImprovement) {
+        if (minImprovement < 0 || minImprovement >= 1)
+            throw new IllegalArgumentException("Relative improvement has to be in range [0, 1).");
+        this.minImprovement = minImprovement;
+        return this;
+    }
+
+    /**
+     * Sets time budget of the whole model selection, degrees are not started after the budget runs out.
+     * Degree 0 is evaluated even with zero budget or a budget shorter than a single solve.
+     * @param duration the long budget, not negative
+     * @param unit the TimeUnit of the duration
+     * @return SearchPolicy this instance
+     */
+    public SearchPolicy timeBudget(long duration, TimeUnit unit) {
+        if (duration < 0) throw new IllegalArgumentException("Time budget can't be negative.");
+        this.timeBudget = unit.toNanos(duration);
+        return this;
+    }
+
+    public int maxDegree() {
+        return maxDegree;
+    }
+
+    /**
+     * @return boolean true if all degrees up to max degree are always evaluated
+     */
+    boolean isExhaustive() {
+        return patience == Integer.MAX_VALUE && timeBudget == Long.MAX_VALUE;
+    }
+
+    /**
+     * Starts new model selection.
+     * @return Search the state of model selection
+     */
+    Search start() {
+        return new Search();
+    }
+
+    /**
+     * State of a single model selection.
+     */
+    class Search {
+
+        private final long start = System.nanoTime();
+        private double minimalRMS = Double.MAX_VALUE;
+        private int withoutImprovement; // consecutive degrees without improvement
+        private int[] evaluated = new int[maxDegree + 1];
+        private int count; // number of evaluated degrees
+
+        /**
+         * @param degree the int next polynomial degree
+         * @return boolean true if the degree should be evaluated, always for the first degree
+         */
+        boolean proceed(int degree) {
+            if (degree > maxDegree) return false;
+            if (count == 0) return true;
+            return withoutImprovement < patience
+                    && System.nanoTime() - start < timeBudget;
+        }
+
+        /**
+         * Records evaluated degree.
+         * @param degree the int polynomial degree
+         * @param RMS the double RMS error with validation data, NaN if the degree couldn't be fitted
+         */
+        void record(int degree, double RMS) {
+            evaluated[count++] = degree;
+
+            if (RMS < minimalRMS * (1 - minImprovement)) {
+                minimalRMS = RMS;
+                withoutImprovement = 0;
+            } else {
+                ++withoutImprovement;
+            }
+        }
+
+        /**
+         * @return int[] the evaluated degrees in increasing order
+         */
+        int[] evaluated() {
+            return Arrays.copyOf(evaluated, count);
+        }
+    }
+}
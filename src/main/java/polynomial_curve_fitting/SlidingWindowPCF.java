@@ -0,0 +1,204 @@
+package polynomial_curve_fitting;
+
+import functions.Function;
+import functions.Polynomial;
+
+import static java.lang.Math.abs;
+
+/**
+ * Polynomial Curve Fitting of given degree over the last W points of a stream.
+ *
+ * Keeps moments of the window, see MomentAccumulator. Every new point adds its contribution
+ * and the point leaving the window removes its own, so an update costs O(M) regardless of W.
+ * Moments are summed with Neumaier compensation, so repeated adding and removing doesn't make them drift.
+ * Polynomial is solved from the moments on demand without visiting points of the window.
+ *
+ * No model selection is done, polynomial degree is fixed. While the window can't determine a polynomial
+ * of the degree, e.g. during warm-up with no more points than the degree, the highest solvable lower degree is fitted.
+ *
+ * @see polynomial_curve_fitting.PolynomialCurveFitting for vector definitions.
+ */
+public class SlidingWindowPCF implements PolynomialCurveFitting {
+
+    private final int degree;
+    private final int capacity; // window size W
+
+    // ring buffer of points in the window, oldest point is at index head
+    private final double[] x;
+    private final double[] t;
+    private int head;
+    private int size;
+
+    // compensated moments, moment = sum + compensation
+    private final double[] powerSums, powerCompensations; // k = 0..2*M
+    private final double[] crossSums, crossCompensations; // k = 0..M
+    private final double[] targetSquares = new double[1], targetCompensations = new double[1];
+
+    private double[] w; // coefficients of polynomial fitted to current window, solved once per add
+
+    /**
+     * @param degree the int polynomial degree
+     * @param capacity the int window size W
+     */
+    public SlidingWindowPCF(int degree, int capacity) {
+        if (degree < 0) throw new IllegalArgumentException("Degree can't be negative.");
+        if (capacity <= degree) throw new IllegalArgumentException("Window has to be larger than polynomial degree.");
+
+        this.degree = degree;
+        this.capacity = capacity;
+        this.x = new double[capacity];
+        this.t = new double[capacity];
+        this.powerSums = new double[2 * degree + 1];
+        this.powerCompensations = new double[2 * degree + 1];
+        this.crossSums = new double[degree + 1];
+        this.crossCompensations = new double[degree + 1];
+    }
+
+    /**
+     * Adds a new point to the window, the oldest point leaves the window if it is full.
+     * @param x the double point
+     * @param t the double corresponding target
+     * @return SlidingWindowPCF this instance
+     */
+    public SlidingWindowPCF add(double x, double t) {
+        if (size == capacity) {
+            update(this.x[head], this.t[head], -1);
+            this.x[head] = x;
+            this.t[head] = t;
+            head = (head + 1) % capacity;
+        } else {
+            int tail = (head + size) % capacity;
+            this.x[tail] = x;
+            this.t[tail] = t;
+            ++size;
+        }
+        update(x, t, 1);
+
+        w = null;
+        return this;
+    }
+
+    /**
+     * Adds (sign = 1) or removes (sign = -1) contribution of a point to the moments.
+     */
+    private void update(double x, double t, double sign) {
+        double power = sign;
+
+        for (int k = 0; k <= degree; ++k) {
+            add(powerSums, powerCompensations, k, power);
+            add(crossSums, crossCompensations, k, power * t);
+            power *= x;
+        }
+        for (int k = degree + 1; k <= 2 * degree; ++k) {
+            add(powerSums, powerCompensations, k, power);
+            power *= x;
+        }
+        add(targetSquares, targetCompensations, 0, sign * t * t);
+    }
+
+    /**
+     * Neumaier summation, sum[k] += value, rounding error is accumulated in compensation[k].
+     */
+    private static void add(double[] sum, double[] compensation, int k, double value) {
+        double s = sum[k];
+        double result = s + value;
+
+        if (abs(s) >= abs(value)) compensation[k] += (s - result) + value;
+        else compensation[k] += (value - result) + s;
+
+        sum[k] = result;
+    }
+
+    /**
+     * @return MomentAccumulator the compensated moments of the window
+     */
+    private MomentAccumulator moments() {
+        double[] power = new double[powerSums.length];
+        for (int k = 0; k < power.length; ++k)
+            power[k] = powerSums[k] + powerCompensations[k];
+
+        double[] cross = new double[crossSums.length];
+        for (int k = 0; k < cross.length; ++k)
+            cross[k] = crossSums[k] + crossCompensations[k];
+
+        return new MomentAccumulator(degree, size, power, cross, targetSquares[0] + targetCompensations[0]);
+    }
+
+    /**
+     * Getter for number of points in the window
+     * @return int the number of points
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Function polynomial() {
+        return new Polynomial(coefficients());
+    }
+
+    /**
+     * Solves polynomial coefficients for current window, of lower degree if matrix A of the degree is singular.
+     * @return double[] the vector w
+     * @throws IllegalStateException if the window is empty or not even degree 0 can be fitted
+     */
+    @Override
+    public double[] coefficients() {
+        if (w == null) {
+            if (size == 0) throw new IllegalStateException("No polynomial can be fitted to an empty window.");
+
+            double[][] degreeToW = moments().solveUpTo(degree);
+            for (int d = degree; d >= 0 && w == null; --d)
+                w = degreeToW[d];
+
+            if (w == null) throw new IllegalStateException("No polynomial degree can be fitted to the window.");
+        }
+        return w;
+    }
+
+    /**
+     * @return int the degree of polynomial fitted to current window, lower than the given degree while it is singular
+     */
+    @Override
+    public int degree() {
+        return coefficients().length - 1;
+    }
+
+    /**
+     * @return double[] the copy of points in the window, from the oldest one
+     */
+    @Override
+    public double[] x() {
+        return window(x);
+    }
+
+    /**
+     * @return double[] the copy of targets in the window, from the oldest one
+     */
+    @Override
+    public double[] t() {
+        return window(t);
+    }
+
+    private double[] window(double[] buffer) {
+        double[] result = new double[size];
+        for (int n = 0; n < size; ++n)
+            result[n] = buffer[(head + n) % capacity];
+        return result;
+    }
+
+    @Override
+    public double errorRMS() {
+        return moments().rootMeanSquare(coefficients());
+    }
+
+    @Override
+    public double[] getDegreeToRMS() {
+        return null;
+    }
+
+    @Override
+    public double[][] getDegreeLambdaToRMS() {
+        return null;
+    }
+}
@@ -0,0 +1,294 @@
+package polynomial_curve_fitting;
+
+import functions.Function;
+import functions.Polynomial;
+import set.ChunkedTrainingSet;
+import set.CompressedTrainingSet;
+import set.TrainingSetView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static polynomial_curve_fitting.AbstractPCF.MAX_DEGREE;
+import static polynomial_curve_fitting.AbstractPCF.SPLIT_RATIO;
+
+/**
+ * Polynomial Curve Fitting over a stream of points with constant memory.
+ * Points are consumed one at a time or in chunks and only their moments are kept,
+ * see MomentAccumulator. Every VALIDATION_STRIDE-th point goes to validation set,
+ * which gives the same ratio of training and validation sets as LeastSquaresPCF.
+ *
+ * Model selection, i.e. selection of the polynomial degree,
+ * is done by finding lowest root-mean-square error with validation data for each degree.
+ * The error is computed from residuals, not from validation moments, whose terms cancel each other
+ * for high degrees on wide domains. Residuals are evaluated with a systematic sample of at most VALIDATION_SAMPLE
+ * validation points, i.e. every sampleStride-th validation point, where the stride doubles whenever the sample is full,
+ * and with representatives of compressed validation sets.
+ *
+ * Fittings built on different threads or from different files can be merged into one,
+ * a single instance is not thread-safe.
+ * Vectors x and t are not stored, x() and t() return null.
+ *
+ * @see polynomial_curve_fitting.PolynomialCurveFitting for vector definitions.
+ */
+public class StreamingPCF implements PolynomialCurveFitting {
+
+    private static System.Logger LOGGER = System.getLogger(StreamingPCF.class.getName());
+
+    static final int VALIDATION_STRIDE = Math.round(1 / (1 - SPLIT_RATIO)); // every n-th point is validation point
+    static final int VALIDATION_SAMPLE = 1 << 16; // max validation points kept for model selection
+
+    private final MomentAccumulator training = new MomentAccumulator(MAX_DEGREE);
+    private final MomentAccumulator validation = new MomentAccumulator(MAX_DEGREE);
+    private long count; // number of accepted points
+    private long streamed; // number of points accepted one by one, every VALIDATION_STRIDE-th is validation point
+
+    private double[] sampleX = new double[0], sampleT = new double[0]; // sample of streamed validation points
+    private int sampleSize;
+    private long sampleStride = 1; // every sampleStride-th streamed validation point is in the sample
+    private long validationPoints; // number of streamed validation points
+    private final List<CompressedTrainingSet> compressedValidation = new ArrayList<>();
+
+    private double[] w; // coefficients of polynomial that minimizes error
+    private double[] degreeToRMS; // maps polynomial degree to RMS error
+
+    /**
+     * Accepts a single point.
+     * @param x the double point
+     * @param t the double corresponding target
+     * @return StreamingPCF this instance
+     */
+    public StreamingPCF accept(double x, double t) {
+        ++count;
+        if (++streamed % VALIDATION_STRIDE == 0) {
+            validation.add(x, t);
+            sample(x, t);
+        } else {
+            training.add(x, t);
+        }
+
+        w = null;
+        return this;
+    }
+
+    /**
+     * Accepts all points of vector x with corresponding targets t.
+     * @return StreamingPCF this instance
+     */
+    public StreamingPCF accept(double[] x, double[] t) {
+        return accept(x, t, 0, x.length);
+    }
+
+    /**
+     * Accepts chunk of points x[offset], ... x[offset + length - 1] with corresponding targets.
+     * @return StreamingPCF this instance
+     */
+    public StreamingPCF accept(double[] x, double[] t, int offset, int length) {
+        if (x.length != t.length)
+            throw new IllegalArgumentException("Vector and targets length are not same.");
+
+        for (int n = offset; n < offset + length; ++n)
+            accept(x[n], t[n]);
+        return this;
+    }
+
+    /**
+     * Accepts all points of the set chunk by chunk, e.g. MappedTrainingSet, which doesn't fit in the heap.
+     * @param set the ChunkedTrainingSet
+     * @return StreamingPCF this instance
+     */
+    public StreamingPCF accept(ChunkedTrainingSet set) {
+        set.forEachChunk(this::accept);
+        return this;
+    }
+
+    /**
+     * Accepts compressed training and validation sets, their representatives are weighted by their numbers of points.
+     * Their points are counted by count(), but don't shift which of the points accepted one by one are validation points.
+     * Degrees higher than the number of training representatives minus one can't be fitted, see CompressedTrainingSet.compress.
+     * Fitted polynomial w is within training.errorBound(w) + training.errorBound(v) of polynomial v
+     * fitted to all training points, see CompressedTrainingSet.
+     * @param training the CompressedTrainingSet used to fit coefficients
+     * @param validation the CompressedTrainingSet used for model selection
+     * @return StreamingPCF this instance
+     */
+    public StreamingPCF accept(CompressedTrainingSet training, CompressedTrainingSet validation) {
+        if (training.size() <= MAX_DEGREE)
+            LOGGER.log(System.Logger.Level.WARNING, "Compressed training set has only " + training.size()
+                    + " representatives, polynomial degrees above " + (training.size() - 1) + " can't be fitted.");
+
+        this.training.add(training);
+        this.validation.add(validation);
+        compressedValidation.add(validation);
+        count += training.count() + validation.count();
+
+        w = null;
+        return this;
+    }
+
+    /**
+     * Adds points accepted by other fitting to this one.
+     * @param other the StreamingPCF
+     * @return StreamingPCF this instance
+     */
+    public StreamingPCF merge(StreamingPCF other) {
+        training.merge(other.training);
+        validation.merge(other.validation);
+        count += other.count;
+        streamed += other.streamed;
+
+        // both samples are brought to the same stride and concatenated
+        while (sampleStride < other.sampleStride) halveSample();
+        int step = (int) (sampleStride / other.sampleStride);
+        for (int i = 0; i < other.sampleSize; i += step)
+            addToSample(other.sampleX[i], other.sampleT[i]);
+        if (sampleSize > VALIDATION_SAMPLE) halveSample();
+        validationPoints += other.validationPoints;
+        compressedValidation.addAll(other.compressedValidation);
+
+        w = null;
+        return this;
+    }
+
+    /**
+     * Adds streamed validation point to the sample if it is a sampleStride-th one.
+     */
+    private void sample(double x, double t) {
+        long index = validationPoints++;
+        if (index % sampleStride != 0) return;
+
+        if (sampleSize >= VALIDATION_SAMPLE) {
+            halveSample();
+            if (index % sampleStride != 0) return;
+        }
+        addToSample(x, t);
+    }
+
+    private void addToSample(double x, double t) {
+        if (sampleSize == sampleX.length) {
+            int length = Math.max(16, 2 * sampleSize);
+            sampleX = Arrays.copyOf(sampleX, length);
+            sampleT = Arrays.copyOf(sampleT, length);
+        }
+        sampleX[sampleSize] = x;
+        sampleT[sampleSize++] = t;
+    }
+
+    /**
+     * Keeps every other point of the sample and doubles the stride.
+     */
+    private void halveSample() {
+        int size = 0;
+        for (int i = 0; i < sampleSize; i += 2) {
+            sampleX[size] = sampleX[i];
+            sampleT[size++] = sampleT[i];
+        }
+        sampleSize = size;
+        sampleStride *= 2;
+    }
+
+    /**
+     * Getter for number of accepted points.
+     * @return long the number of points
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Find optimal polynomial coefficients,
+     * where polynomial(x) = sum(w[i] * x^i) from i=0 to M
+     */
+    private void setCoefficients() {
+        if (validation.count() == 0)
+            throw new IllegalStateException("Not enough points to fit polynomial.");
+
+        double[][] degreeToW = training.solveUpTo(MAX_DEGREE);
+
+        degreeToRMS = new double[MAX_DEGREE + 1];
+        double[] sums = validationSumsOfSquares(degreeToW);
+        double minimalRMS = Double.MAX_VALUE;
+
+        // model comparison - iterate over all possible polynomial degrees
+        for (int degree = 0; degree <= MAX_DEGREE; ++degree) {
+            if (degreeToW[degree] == null) continue;
+
+            double RMS = Math.sqrt(2 * sums[degree] / validation.count());
+            degreeToRMS[degree] = RMS;
+
+            // updates vector w if RMS is lower than the previous one found, ties go to the higher degree
+            if (RMS <= minimalRMS) {
+                minimalRMS = RMS;
+                w = degreeToW[degree];
+            }
+        }
+
+        if (w == null) throw new IllegalStateException("No polynomial degree can be fitted.");
+    }
+
+    /**
+     * Computes validation sum-of-squares error of every candidate from residuals,
+     * streamed validation points are represented by the sample, compressed sets by their representatives.
+     * @param candidates the double[][] with polynomial coefficients, null candidates are skipped
+     * @return double[] the sum-of-squares error of every candidate
+     */
+    private double[] validationSumsOfSquares(double[][] candidates) {
+        double[] sums = new double[candidates.length];
+
+        if (sampleSize > 0) {
+            double[] sampleSums = ValidationScorer.sumsOfSquares(candidates, TrainingSetView.of(sampleX, sampleT).slice(0, sampleSize), null);
+            double scale = (double) validationPoints / sampleSize;
+            for (int k = 0; k < candidates.length; ++k)
+                sums[k] = scale * sampleSums[k];
+        }
+        for (CompressedTrainingSet set : compressedValidation) {
+            for (int k = 0; k < candidates.length; ++k)
+                if (candidates[k] != null) sums[k] += set.sumOfSquares(candidates[k]);
+        }
+        return sums;
+    }
+
+    @Override
+    public Function polynomial() {
+        return new Polynomial(coefficients());
+    }
+
+    @Override
+    public double[] coefficients() {
+        if (w == null) setCoefficients();
+        return w;
+    }
+
+    @Override
+    public int degree() {
+        return coefficients().length - 1;
+    }
+
+    @Override
+    public double[] x() {
+        return null;
+    }
+
+    @Override
+    public double[] t() {
+        return null;
+    }
+
+    @Override
+    public double errorRMS() {
+        double[] w = coefficients();
+        double sum = training.sumOfSquares(w) + validation.sumOfSquares(w);
+        return Math.sqrt(2 * sum / count);
+    }
+
+    @Override
+    public double[] getDegreeToRMS() {
+        return degreeToRMS;
+    }
+
+    @Override
+    public double[][] getDegreeLambdaToRMS() {
+        return null;
+    }
+}
@@ -0,0 +1,159 @@
+package polynomial_curve_fitting;
+
+import set.TrainingSetView;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import static java.lang.Math.sqrt;
+
+/**
+ * Computes validation RMS errors of candidate polynomials of all degrees in a single pass over validation data.
+ *
+ * Validation data are processed in blocks of BLOCK_SIZE points. Powers x[n]^j of a block are computed once
+ * and shared by all candidates, every candidate is then evaluated as sum(w[j] * x[n]^j) over the whole block,
+ * so the block stays in cache while all candidates are scored and inner loops over points are vectorized.
+ *
+ * Data are split to chunks of fixed size, which may be scored in parallel.
+ * Slice views are scored directly in their parent arrays, points of index views are gathered chunk by chunk.
+ * Partial sums are added in chunk order, so the result doesn't depend on the executor.
+ */
+class ValidationScorer {
+
+    private static final int BLOCK_SIZE = 256; // points sharing computed powers
+    private static final int CHUNK_SIZE = 64 * BLOCK_SIZE; // points scored by one task
+
+    private ValidationScorer() {
+    }
+
+    /**
+     * Computes RMS error of every candidate polynomial, defined the same way as Error.rootMeanSquare().
+     * @param candidates the double[][] with polynomial coefficients, null candidates are skipped
+     * @param validation the TrainingSetView with validation points
+     * @param executor the Executor scoring chunks in parallel, null for sequential scoring
+     * @return double[] the RMS error of every candidate, NaN for null candidates
+     */
+    static double[] rootMeanSquare(double[][] candidates, TrainingSetView validation, Executor executor) {
+        double[] RMS = sumsOfSquares(candidates, validation, executor);
+        for (int k = 0; k < RMS.length; ++k)
+            RMS[k] = sqrt(2 * RMS[k] / validation.size());
+        return RMS;
+    }
+
+    /**
+     * Computes sum-of-squares error sum((y(x[n], w) - t[n])^2) of every candidate polynomial,
+     * residuals are evaluated directly, so the sums don't suffer from cancellation of moments.
+     * @param candidates the double[][] with polynomial coefficients, null candidates are skipped
+     * @param validation the TrainingSetView with validation points
+     * @param executor the Executor scoring chunks in parallel, null for sequential scoring
+     * @return double[] the sum-of-squares error of every candidate, NaN for null candidates
+     */
+    static double[] sumsOfSquares(double[][] candidates, TrainingSetView validation, Executor executor) {
+        int size = validation.size();
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        double[][] partial = new double[chunks][];
+
+        if (executor == null || chunks == 1) {
+            for (int c = 0; c < chunks; ++c)
+                partial[c] = partialSumsOfSquares(candidates, validation, c * CHUNK_SIZE, Math.min((c + 1) * CHUNK_SIZE, size));
+        } else {
+            CompletableFuture<?>[] tasks = new CompletableFuture<?>[chunks];
+            for (int c = 0; c < chunks; ++c) {
+                final int chunk = c;
+                tasks[c] = CompletableFuture.runAsync(() -> partial[chunk] = partialSumsOfSquares(candidates, validation,
+                        chunk * CHUNK_SIZE, Math.min((chunk + 1) * CHUNK_SIZE, size)), executor);
+            }
+
+            try {
+                CompletableFuture.allOf(tasks).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+
+        double[] sums = new double[candidates.length];
+        for (int k = 0; k < candidates.length; ++k) {
+            if (candidates[k] == null) {
+                sums[k] = Double.NaN;
+                continue;
+            }
+
+            for (int c = 0; c < chunks; ++c)
+                sums[k] += partial[c][k];
+        }
+        return sums;
+    }
+
+    /**
+     * Computes sum((y(x[n], w) - t[n])^2) for every candidate w and points from..to-1 of the validation view.
+     */
+    private static double[] partialSumsOfSquares(double[][] candidates, TrainingSetView validation, int from, int to) {
+        int maxDegree = maxDegree(candidates);
+        double[] sums = new double[candidates.length];
+        double[] powers = new double[(maxDegree + 1) * BLOCK_SIZE]; // x[n]^j = powers[j * BLOCK_SIZE + n - from]
+        double[] y = new double[BLOCK_SIZE];
+
+        validation.forEachChunk(from, to, (x, t, offset, length) ->
+                addSumsOfSquares(candidates, x, t, offset, length, maxDegree, sums, powers, y));
+        return sums;
+    }
+
+    private static int maxDegree(double[][] candidates) {
+        int maxDegree = 0;
+        for (double[] w : candidates)
+            if (w != null) maxDegree = Math.max(maxDegree, w.length - 1);
+        return maxDegree;
+    }
+
+    /**
+     * Adds squared errors of points x[offset], ... x[offset + length - 1] to sums, block by block.
+     */
+    private static void addSumsOfSquares(double[][] candidates, double[] x, double[] t, int offset, int length,
+                                         int maxDegree, double[] sums, double[] powers, double[] y) {
+        for (int from = offset; from < offset + length; from += BLOCK_SIZE) {
+            int size = Math.min(BLOCK_SIZE, offset + length - from);
+
+            for (int i = 0; i < size; ++i)
+                powers[i] = 1;
+            for (int j = 1; j <= maxDegree; ++j) {
+                int row = j * BLOCK_SIZE, previous = row - BLOCK_SIZE;
+                for (int i = 0; i < size; ++i)
+                    powers[row + i] = powers[previous + i] * x[from + i];
+            }
+
+            for (int k = 0; k < candidates.length; ++k) {
+                double[] w = candidates[k];
+                if (w == null) continue;
+
+                // two terms per pass over the block halve loads and stores of y
+                int j = w.length % 2;
+                double c0 = w[0];
+                if (j == 1) {
+                    for (int i = 0; i < size; ++i)
+                        y[i] = c0;
+                } else {
+                    double c1 = w[1];
+                    for (int i = 0; i < size; ++i)
+                        y[i] = c0 + c1 * powers[BLOCK_SIZE + i];
+                    j = 2;
+                }
+                for (; j < w.length; j += 2) {
+                    int row0 = j * BLOCK_SIZE, row1 = row0 + BLOCK_SIZE;
+                    c0 = w[j];
+                    double c1 = w[j + 1];
+                    for (int i = 0; i < size; ++i)
+                        y[i] += c0 * powers[row0 + i] + c1 * powers[row1 + i];
+                }
+
+                double sum = 0;
+                for (int i = 0; i < size; ++i) {
+                    double e = y[i] - t[from + i];
+                    sum += e * e;
+                }
+                sums[k] += sum;
+            }
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package polynomial_curve_fitting.utils;
 
 import functions.Function;
-
-import static java.lang.Math.*;
+import set.ChunkedTrainingSet;
 
 /**
  * Computes the root-mean-square error for polynomial.
+ * Both errors are computed by ErrorMetrics, which provides other metrics from the same pass as well.
  * @author Ondrej Kratochvil
  */
 public class Error {
@@ -18,25 +18,28 @@ public class Error {
      * @return double the root-mean-square error
      */
     public static double rootMeanSquare(Function function, double[] x, double[] t) {
-        double sum = sumOfSquares(function, x, t);
-        int n = x.length;
-        return sqrt(2 * sum / n);
+        return ErrorMetrics.of(function, x, t).rootMeanSquare();
     }
 
+    /**
+     * Computes root-mean-square error with a set consumed chunk by chunk, e.g. MappedTrainingSet.
+     * @param function the function for which the RMS error will be computed
+     * @param set the ChunkedTrainingSet
+     * @return double the root-mean-square error
+     */
+    public static double rootMeanSquare(Function function, ChunkedTrainingSet set) {
+        return ErrorMetrics.of(function, set).rootMeanSquare();
+    }
 
     /**
      * Computes sum-of-squares error.
      * @param function the function for which the RMS error will be computed
      * @param x the double[] representing vector with data
      * @param t the double[] with corresponding targets
-     * @return double the root-mean-square error
+     * @return double the sum-of-squares error
      */
     public static double sumOfSquares(Function function, double[] x, double[] t) {
-        double sum = 0;
-        for (int n = 0; n < x.length; ++n)
-            sum += pow(function.f(x[n]) - t[n], 2);
-
-        return sum;
+        return ErrorMetrics.of(function, x, t).sumOfSquares();
     }
 }
 
@@ -0,0 +1,270 @@
+package polynomial_curve_fitting.utils;
+
+import functions.Function;
+import set.ChunkedTrainingSet;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.sqrt;
+
+/**
+ * Error metrics of a function or precomputed predictions y[n] against targets t[n], computed in a single pass.
+ *
+ * Sum-of-squares error       SSE = sum((y[n] - t[n])^2), same as Error.sumOfSquares()
+ * Root-mean-square error     RMS = sqrt(2 * SSE / N), same as Error.rootMeanSquare()
+ * Mean absolute error        MAE = sum(|y[n] - t[n]|) / N
+ * Max absolute error         max(|y[n] - t[n]|)
+ * Coefficient of determination R^2 = 1 - sum((y[n] - t[n])^2) / sum((t[n] - mean(t))^2)
+ *
+ * Sums are accumulated with Neumaier compensation and variance of targets with Welford's method,
+ * so long vectors don't lose precision. Partial metrics of chunks are merged,
+ * which is used to split large vectors across cores, see parallel().
+ * Function values are computed in blocks by the bulk method Function.f(double[], int, int, double[]).
+ */
+public class ErrorMetrics {
+
+    private static final int BLOCK_SIZE = 1024; // function values computed at once
+    private static final int PARALLEL_THRESHOLD = 1 << 16; // min number of points per task
+
+    private long count;
+    private double squares, squaresCompensation; // sum((y[n] - t[n])^2)
+    private double absolutes, absolutesCompensation; // sum(|y[n] - t[n]|)
+    private double max; // max(|y[n] - t[n]|)
+    private double mean, variance; // mean(t) and sum((t[n] - mean(t))^2)
+
+    private ErrorMetrics() {
+    }
+
+    /**
+     * Computes metrics of function with data x and targets t.
+     * @param function the function for which the errors will be computed
+     * @param x the double[] representing vector with data
+     * @param t the double[] with corresponding targets
+     * @return ErrorMetrics the metrics
+     */
+    public static ErrorMetrics of(Function function, double[] x, double[] t) {
+        checkLength(x, t);
+        return new ErrorMetrics().add(function, x, t, 0, x.length);
+    }
+
+    /**
+     * Computes metrics of function with a set consumed chunk by chunk, e.g. MappedTrainingSet.
+     * @param function the function for which the errors will be computed
+     * @param set the ChunkedTrainingSet
+     * @return ErrorMetrics the metrics
+     */
+    public static ErrorMetrics of(Function function, ChunkedTrainingSet set) {
+        ErrorMetrics metrics = new ErrorMetrics();
+        set.forEachChunk((x, t, offset, length) -> metrics.add(function, x, t, offset, length));
+        return metrics;
+    }
+
+    /**
+     * Computes metrics of precomputed predictions, no function is evaluated.
+     * @param predictions the double[] with function values y[n]
+     * @param t the double[] with corresponding targets
+     * @return ErrorMetrics the metrics
+     */
+    public static ErrorMetrics of(double[] predictions, double[] t) {
+        checkLength(predictions, t);
+        return new ErrorMetrics().add(predictions, t, 0, t.length);
+    }
+
+    /**
+     * Computes metrics of predictions y[n] for n = offset..offset+length-1.
+     * @param predictions the double[] with function values y[n]
+     * @param t the double[] with corresponding targets
+     * @param offset the int index of the first point
+     * @param length the int number of points
+     * @return ErrorMetrics the metrics
+     */
+    public static ErrorMetrics of(double[] predictions, double[] t, int offset, int length) {
+        checkLength(predictions, t);
+        return new ErrorMetrics().add(predictions, t, offset, length);
+    }
+
+    /**
+     * Computes metrics of function in common ForkJoinPool, chunks of data are evaluated in parallel.
+     * Function has to be thread-safe.
+     * @see #of(Function, double[], double[])
+     */
+    public static ErrorMetrics parallel(Function function, double[] x, double[] t) {
+        checkLength(x, t);
+        return ForkJoinPool.commonPool().invoke(new Task(function, x, t, 0, x.length));
+    }
+
+    /**
+     * Computes metrics of precomputed predictions in common ForkJoinPool.
+     * @see #of(double[], double[])
+     */
+    public static ErrorMetrics parallel(double[] predictions, double[] t) {
+        checkLength(predictions, t);
+        return ForkJoinPool.commonPool().invoke(new Task(null, predictions, t, 0, t.length));
+    }
+
+    private static void checkLength(double[] x, double[] t) {
+        if (x.length != t.length)
+            throw new IllegalArgumentException("Vector and targets length are not same.");
+    }
+
+    private ErrorMetrics add(Function function, double[] x, double[] t, int offset, int length) {
+        // bulk methods write f(x[i]) to the same index, so the block of arguments is copied to the beginning
+        double[] block = new double[Math.min(BLOCK_SIZE, length)];
+        double[] y = new double[block.length];
+
+        for (int from = offset; from < offset + length; from += BLOCK_SIZE) {
+            int size = Math.min(BLOCK_SIZE, offset + length - from);
+            System.arraycopy(x, from, block, 0, size);
+            function.f(block, 0, size, y);
+
+            for (int i = 0; i < size; ++i)
+                add(y[i], t[from + i]);
+        }
+        return this;
+    }
+
+    private ErrorMetrics add(double[] y, double[] t, int offset, int length) {
+        for (int n = offset; n < offset + length; ++n)
+            add(y[n], t[n]);
+        return this;
+    }
+
+    private void add(double y, double t) {
+        double e = y - t;
+        double a = abs(e);
+
+        // Neumaier summation
+        double s = squares + e * e;
+        squaresCompensation += squares >= e * e ? (squares - s) + e * e : (e * e - s) + squares;
+        squares = s;
+
+        s = absolutes + a;
+        absolutesCompensation += absolutes >= a ? (absolutes - s) + a : (a - s) + absolutes;
+        absolutes = s;
+
+        if (a > max || Double.isNaN(a)) max = a;
+
+        // Welford's method
+        ++count;
+        double delta = t - mean;
+        mean += delta / count;
+        variance += delta * (t - mean);
+    }
+
+    /**
+     * Merges metrics of another chunk of data to this one.
+     */
+    private ErrorMetrics merge(ErrorMetrics other) {
+        if (other.count == 0) return this;
+
+        squaresCompensation += other.squaresCompensation;
+        absolutesCompensation += other.absolutesCompensation;
+        double s = squares + other.squares;
+        squaresCompensation += abs(squares) >= abs(other.squares) ? (squares - s) + other.squares : (other.squares - s) + squares;
+        squares = s;
+        s = absolutes + other.absolutes;
+        absolutesCompensation += abs(absolutes) >= abs(other.absolutes) ? (absolutes - s) + other.absolutes : (other.absolutes - s) + absolutes;
+        absolutes = s;
+
+        if (other.max > max || Double.isNaN(other.max)) max = other.max;
+
+        // Chan's parallel variance
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        variance += other.variance + delta * delta * count / total * other.count;
+        mean += delta * other.count / total;
+        count = total;
+        return this;
+    }
+
+    /**
+     * Chunk of data, split into halves above PARALLEL_THRESHOLD.
+     * Function is null if x contains predictions.
+     */
+    private static class Task extends RecursiveTask<ErrorMetrics> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Function function;
+        private final double[] x, t;
+        private final int offset, length;
+
+        private Task(Function function, double[] x, double[] t, int offset, int length) {
+            this.function = function;
+            this.x = x;
+            this.t = t;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        protected ErrorMetrics compute() {
+            if (length < 2 * PARALLEL_THRESHOLD) {
+                if (function == null) return new ErrorMetrics().add(x, t, offset, length);
+                return new ErrorMetrics().add(function, x, t, offset, length);
+            }
+
+            int half = length / 2;
+            Task right = new Task(function, x, t, offset + half, length - half);
+            right.fork();
+            ErrorMetrics left = new Task(function, x, t, offset, half).compute();
+            return left.merge(right.join());
+        }
+    }
+
+    /**
+     * @return long the number of points N
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return double the sum-of-squares error sum((y[n] - t[n])^2)
+     */
+    public double sumOfSquares() {
+        return squares + squaresCompensation;
+    }
+
+    /**
+     * @return double the root-mean-square error sqrt(2 * SSE / N)
+     */
+    public double rootMeanSquare() {
+        return sqrt(2 * (squares + squaresCompensation) / count);
+    }
+
+    /**
+     * @return double the mean absolute error
+     */
+    public double meanAbsolute() {
+        return (absolutes + absolutesCompensation) / count;
+    }
+
+    /**
+     * @return double the max absolute error
+     */
+    public double maxAbsolute() {
+        return max;
+    }
+
+    /**
+     * @return double the coefficient of determination R^2, NaN if all targets are same
+     */
+    public double rSquared() {
+        if (variance == 0) return Double.NaN;
+        return 1 - (squares + squaresCompensation) / variance;
+    }
+
+    @Override
+    public String toString() {
+        return "ErrorMetrics{" +
+                "N=" + count +
+                ", SSE=" + sumOfSquares() +
+                ", RMS=" + rootMeanSquare() +
+                ", MAE=" + meanAbsolute() +
+                ", max=" + maxAbsolute() +
+                ", R^2=" + rSquared() + "}";
+    }
+}
@@ -0,0 +1,32 @@
+package set;
+
+/**
+ * Training set, which is consumed chunk by chunk, so it doesn't have to fit in the heap.
+ */
+public interface ChunkedTrainingSet {
+
+    /**
+     * Consumer of chunk of points x[offset], ... x[offset + length - 1] with corresponding targets.
+     * Arrays may be reused for the next chunk, so they must not be kept.
+     */
+    @FunctionalInterface
+    interface ChunkConsumer {
+
+        void accept(double[] x, double[] t, int offset, int length);
+    }
+
+    /**
+     * Passes all points to the consumer in order, chunk by chunk.
+     * @param consumer the ChunkConsumer
+     */
+    void forEachChunk(ChunkConsumer consumer);
+
+    /**
+     * @return long the number of points
+     */
+    long count();
+
+    double domainMin();
+
+    double domainMax();
+}
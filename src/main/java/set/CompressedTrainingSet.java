@@ -0,0 +1,261 @@
+package set;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.sqrt;
+
+/**
+ * Training set compressed to weighted representative points, one per non-empty bin of the domain.
+ *
+ * Domain is split to bins of equal width, every bin b is represented by mean x[b] and mean t[b] of its n[b] points,
+ * which has weight n[b], and sum of squares of t[n] - t[b] within the bin is kept as well.
+ * Since sum(t[n] - t[b]) over a bin is zero, for every polynomial y
+ * sum((y(x[b]) - t[n])^2) over all points = sum(n[b] * (y(x[b]) - t[b])^2) + withinSquares,
+ * so weighted least squares over representatives is exact least squares over points moved to their bin means.
+ *
+ * Moving points changes y(x) by at most L * h, where L = max|y'(x)| and h is the largest distance of a point
+ * from its bin mean, so by triangle inequality for every polynomial y
+ * |RMS of y over all points - rootMeanSquare(y)| <= sqrt(2) * h * L = errorBound(y).
+ * Hence polynomial w fitted to the compressed set is at most errorBound(w) + errorBound(v) worse than
+ * polynomial v fitted to all points, measured by RMS error over all points.
+ *
+ * The set is built in a single pass over a chunked set and is serializable, so it can be reused across fits.
+ */
+public class CompressedTrainingSet implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final double[] x, t; // means of non-empty bins
+    private final long[] weights; // numbers of points of non-empty bins
+    private final long count; // number of all points
+    private final double withinSquares; // sum((t[n] - t[b])^2) over all points
+    private final double spread; // max |x[n] - x[b]| over all points
+    private final double min, max; // domain
+
+    private CompressedTrainingSet(double[] x, double[] t, long[] weights, long count,
+                                  double withinSquares, double spread, double min, double max) {
+        this.x = x;
+        this.t = t;
+        this.weights = weights;
+        this.count = count;
+        this.withinSquares = withinSquares;
+        this.spread = spread;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Compresses the set in a single pass, points outside the domain belong to the boundary bins.
+     * Polynomial of degree M can be fitted only to at least M + 1 representatives, so bins should be well above
+     * the max fitted degree, e.g. 51 for degrees up to 50, otherwise higher degrees are skipped as not solvable.
+     * @param set the ChunkedTrainingSet, e.g. TrainingSetView or MappedTrainingSet
+     * @param bins the int number of bins of equal width over the domain of the set
+     * @return CompressedTrainingSet the compressed set with at most bins representatives
+     */
+    public static CompressedTrainingSet compress(ChunkedTrainingSet set, int bins) {
+        if (bins < 1) throw new IllegalArgumentException("Number of bins has to be positive.");
+
+        double min = set.domainMin(), max = set.domainMax();
+        double width = (max - min) / bins;
+
+        // running means and sum of squares of deviations of every bin (Welford)
+        long[] n = new long[bins];
+        double[] meanX = new double[bins], meanT = new double[bins], squaresT = new double[bins];
+        double[] binMin = new double[bins], binMax = new double[bins];
+
+        set.forEachChunk((x, t, offset, length) -> {
+            for (int i = offset; i < offset + length; ++i) {
+                int b = width > 0 ? (int) ((x[i] - min) / width) : 0;
+                b = Math.max(0, Math.min(bins - 1, b));
+
+                long nb = ++n[b];
+                meanX[b] += (x[i] - meanX[b]) / nb;
+                double delta = t[i] - meanT[b];
+                meanT[b] += delta / nb;
+                squaresT[b] += delta * (t[i] - meanT[b]);
+
+                if (nb == 1 || x[i] < binMin[b]) binMin[b] = x[i];
+                if (nb == 1 || x[i] > binMax[b]) binMax[b] = x[i];
+            }
+        });
+
+        int size = 0;
+        for (int b = 0; b < bins; ++b)
+            if (n[b] > 0) ++size;
+
+        double[] x = new double[size], t = new double[size];
+        long[] weights = new long[size];
+        long count = 0;
+        double withinSquares = 0, spread = 0;
+
+        for (int b = 0, i = 0; b < bins; ++b) {
+            if (n[b] == 0) continue;
+
+            x[i] = meanX[b];
+            t[i] = meanT[b];
+            weights[i++] = n[b];
+            count += n[b];
+            withinSquares += squaresT[b];
+            spread = max(spread, max(meanX[b] - binMin[b], binMax[b] - meanX[b]));
+        }
+        return new CompressedTrainingSet(x, t, weights, count, withinSquares, spread, min, max);
+    }
+
+    /**
+     * Computes RMS error of polynomial w over all points moved to their bin means,
+     * defined the same way as polynomial_curve_fitting.utils.Error.rootMeanSquare().
+     * @param w the double[] polynomial coefficients
+     * @return double the RMS error, within errorBound(w) of RMS error over all points
+     */
+    public double rootMeanSquare(double[] w) {
+        return sqrt(2 * sumOfSquares(w) / count);
+    }
+
+    /**
+     * Computes sum-of-squares error of polynomial w over all points moved to their bin means,
+     * residuals of representatives are evaluated directly.
+     * @param w the double[] polynomial coefficients
+     * @return double the sum-of-squares error sum(n[b] * (y(x[b]) - t[b])^2) + withinSquares
+     */
+    public double sumOfSquares(double[] w) {
+        double sum = withinSquares;
+        for (int i = 0; i < x.length; ++i) {
+            double y = 0;
+            for (int j = w.length - 1; j >= 0; --j)
+                y = y * x[i] + w[j];
+            double e = y - t[i];
+            sum += weights[i] * e * e;
+        }
+        return sum;
+    }
+
+    /**
+     * Bounds difference of RMS errors of polynomial w over all points and over the compressed set by sqrt(2) * h * L,
+     * where L = sum(j * |w[j]| * R^(j-1)) from j=1 to M bounds |y'(x)| for |x| <= R over all points.
+     * @param w the double[] polynomial coefficients
+     * @return double the error bound
+     */
+    public double errorBound(double[] w) {
+        double R = 0;
+        for (double xi : x)
+            R = max(R, abs(xi) + spread);
+
+        double L = 0, power = 1;
+        for (int j = 1; j < w.length; ++j) {
+            L += j * abs(w[j]) * power;
+            power *= R;
+        }
+        return sqrt(2) * spread * L;
+    }
+
+    /**
+     * @return double[] the representative points, i.e. means of x over non-empty bins
+     */
+    public double[] vector() {
+        return x;
+    }
+
+    /**
+     * @return double[] the representative targets, i.e. means of t over non-empty bins
+     */
+    public double[] targets() {
+        return t;
+    }
+
+    /**
+     * @return long[] the weights, i.e. numbers of points of non-empty bins
+     */
+    public long[] weights() {
+        return weights;
+    }
+
+    /**
+     * @return int the number of representatives
+     */
+    public int size() {
+        return x.length;
+    }
+
+    /**
+     * @return long the number of compressed points
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return double the sum of squares of deviations of targets from their bin means
+     */
+    public double withinSquares() {
+        return withinSquares;
+    }
+
+    /**
+     * @return double the largest distance h of a point from its bin mean
+     */
+    public double spread() {
+        return spread;
+    }
+
+    public double domainMin() {
+        return min;
+    }
+
+    public double domainMax() {
+        return max;
+    }
+
+    /**
+     * Writes the set to a file with Java serialization.
+     * @param path the Path of the file, an existing file is overwritten
+     * @throws IOException if the file can't be written
+     */
+    public void write(Path path) throws IOException {
+        try (ObjectOutputStream output = new ObjectOutputStream(Files.newOutputStream(path))) {
+            output.writeObject(this);
+        }
+    }
+
+    /**
+     * Reads the set written by write(Path).
+     * @param path the Path of the file
+     * @return CompressedTrainingSet the set
+     * @throws IOException if the file can't be read or doesn't contain a compressed set
+     */
+    public static CompressedTrainingSet read(Path path) throws IOException {
+        try (ObjectInputStream input = new ObjectInputStream(Files.newInputStream(path))) {
+            return (CompressedTrainingSet) input.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("File is not a compressed training set.", e);
+        }
+    }
+
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        input.defaultReadObject();
+
+        if (x == null || t == null || weights == null || x.length != t.length || x.length != weights.length)
+            throw new InvalidObjectException("Representatives, targets and weights length are not same.");
+        long sum = 0;
+        for (long weight : weights) {
+            if (weight <= 0) throw new InvalidObjectException("Weights have to be positive.");
+            sum += weight;
+        }
+        if (sum != count) throw new InvalidObjectException("Weights don't sum to the number of points.");
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedTrainingSet{" +
+                "size=" + x.length +
+                ", count=" + count +
+                ", range=[" + min + ", " + max + "]}";
+    }
+}
@@ -0,0 +1,170 @@
+package set;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers directly from ASCII bytes, without creating strings.
+ *
+ * Digits are accumulated to a 64-bit mantissa w and a decimal exponent q, value = w * 10^q.
+ * Small mantissas and exponents are converted exactly by a single multiplication or division by exact power of ten.
+ * Up to 19 significant digits are converted by Eisel-Lemire algorithm: w is multiplied by 128-bit approximation
+ * of 5^q, which is precise enough to round the product correctly.
+ * Remaining cases, i.e. longer mantissas, subnormal numbers, overflow, NaN and Infinity,
+ * fall back to Double.parseDouble(), so results are always the same as Double.parseDouble().
+ */
+final class DoubleParser {
+
+    private static final long MAX_EXACT = 1L << 53; // larger mantissas aren't exact doubles
+    private static final double[] POWERS_OF_TEN = { // exact doubles
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private static final int MIN_POWER = -342, MAX_POWER = 308; // decimal exponents of the table
+    private static final long[] POWERS_OF_FIVE = powersOfFive(); // high and low 64 bits of 5^q, normalized
+
+    private DoubleParser() {
+    }
+
+    /**
+     * Parses decimal number bytes[from..to-1], e.g. -12.5e-3, surrounding spaces are ignored.
+     * @throws NumberFormatException if the bytes aren't a number
+     */
+    static double parse(byte[] bytes, int from, int to) {
+        while (from < to && bytes[from] == ' ') ++from;
+        while (to > from && bytes[to - 1] == ' ') --to;
+        if (from == to) throw new NumberFormatException("Empty number.");
+
+        int i = from;
+        boolean negative = bytes[i] == '-';
+        if (negative || bytes[i] == '+') ++i;
+
+        long w = 0; // unsigned mantissa
+        int q = 0; // decimal exponent
+        int digits = 0; // significant digits, leading zeros excluded
+        boolean anyDigit = false;
+
+        for (; i < to && bytes[i] >= '0' && bytes[i] <= '9'; ++i) {
+            anyDigit = true;
+            if (digits > 0 || bytes[i] != '0') {
+                w = 10 * w + (bytes[i] - '0');
+                ++digits;
+            }
+        }
+        if (i < to && bytes[i] == '.') {
+            for (++i; i < to && bytes[i] >= '0' && bytes[i] <= '9'; ++i, --q) {
+                anyDigit = true;
+                if (digits > 0 || bytes[i] != '0') {
+                    w = 10 * w + (bytes[i] - '0');
+                    ++digits;
+                }
+            }
+        }
+        if (i < to && (bytes[i] == 'e' || bytes[i] == 'E') && anyDigit) {
+            ++i;
+            boolean negativeExponent = i < to && bytes[i] == '-';
+            if (i < to && (bytes[i] == '-' || bytes[i] == '+')) ++i;
+
+            int e = 0;
+            int start = i;
+            for (; i < to && bytes[i] >= '0' && bytes[i] <= '9'; ++i)
+                if (e < 100000) e = 10 * e + (bytes[i] - '0');
+            if (i == start) return fallback(bytes, from, to);
+            q += negativeExponent ? -e : e;
+        }
+
+        if (i != to || !anyDigit || digits > 19) return fallback(bytes, from, to);
+        if (w == 0) return negative ? -0.0 : 0.0;
+
+        double value;
+        if (Long.compareUnsigned(w, MAX_EXACT) <= 0 && q >= -22 && q <= 22) {
+            value = q < 0 ? w / POWERS_OF_TEN[-q] : w * POWERS_OF_TEN[q];
+        } else {
+            long bits = eiselLemire(w, q);
+            if (bits < 0) return fallback(bytes, from, to);
+            value = Double.longBitsToDouble(bits);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Converts w * 10^q to bits of the nearest double.
+     * @return long the double bits, -1 if the result is subnormal or infinite
+     */
+    private static long eiselLemire(long w, int q) {
+        if (q < MIN_POWER || q > MAX_POWER) return -1;
+
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+
+        // 128-bit product of w and 5^q, the low word of 5^q matters only if the high word is not precise enough
+        int index = 2 * (q - MIN_POWER);
+        long high = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index]);
+        long low = w * POWERS_OF_FIVE[index];
+        if ((high & 0x1FF) == 0x1FF) {
+            long secondHigh = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+            low += secondHigh;
+            if (Long.compareUnsigned(secondHigh, low) > 0) ++high;
+        }
+
+        int upperBit = (int) (high >>> 63);
+        int shift = upperBit + 9;
+        long mantissa = high >>> shift;
+        int power2 = (int) (((152170L + 65536) * q) >> 16) + 63 + upperBit - lz + 1023;
+        if (power2 <= 0) return -1; // subnormal
+
+        // exact halfway points round to even
+        if (Long.compareUnsigned(low, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1
+                && (mantissa << shift) == high)
+            mantissa &= ~1L;
+
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= 1L << 53) {
+            mantissa = 1L << 52;
+            ++power2;
+        }
+        mantissa &= ~(1L << 52);
+        if (power2 >= 0x7FF) return -1; // infinity
+
+        return mantissa | (long) power2 << 52;
+    }
+
+    private static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    /**
+     * Computes 128-bit approximations of 5^q normalized to [2^127, 2^128),
+     * truncated for q >= 0 and rounded up for q < 0.
+     */
+    private static long[] powersOfFive() {
+        long[] table = new long[2 * (MAX_POWER - MIN_POWER + 1)];
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+
+        for (int q = MIN_POWER; q <= MAX_POWER; ++q) {
+            BigInteger c;
+            if (q >= 0) {
+                c = BigInteger.valueOf(5).pow(q);
+                int bits = c.bitLength();
+                c = bits > 128 ? c.shiftRight(bits - 128) : c.shiftLeft(128 - bits);
+            } else {
+                BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                int z = power5.subtract(BigInteger.ONE).bitLength(); // min z with 2^z >= 5^-q
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (c.compareTo(two128) >= 0)
+                    c = c.shiftRight(1);
+            }
+
+            int index = 2 * (q - MIN_POWER);
+            table[index] = c.shiftRight(64).longValue();
+            table[index + 1] = c.longValue();
+        }
+        return table;
+    }
+
+    private static double fallback(byte[] bytes, int from, int to) {
+        return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.ISO_8859_1));
+    }
+}
@@ -0,0 +1,159 @@
+package set;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Training set stored in a binary column file, which is memory-mapped instead of read to the heap.
+ *
+ * File format, little-endian:
+ * header   int magic "PCFS", int version, long N, double domainMin, double domainMax (HEADER_SIZE bytes)
+ * column x double x[0], ... x[N-1]
+ * column t double t[0], ... t[N-1]
+ * Files are written by TrainingSetWriter.
+ *
+ * Columns are mapped in regions of REGION_SIZE points, since a single mapping is limited to 2 GB.
+ * forEachChunk() copies CHUNK_SIZE points at a time to reused heap buffers,
+ * so heap usage doesn't depend on the number of points.
+ * Instance is not thread-safe, every thread should open its own one.
+ */
+public class MappedTrainingSet implements ChunkedTrainingSet, Closeable {
+
+    static final int MAGIC = 0x50434653; // "PCFS"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private static final int REGION_SIZE = 1 << 27; // points per mapping, 1 GB
+    private static final int CHUNK_SIZE = 1 << 16; // points per chunk passed to consumers
+
+    private final FileChannel channel;
+    private final long count;
+    private final double min, max; // domain
+
+    private final DoubleBuffer[] xRegions, tRegions;
+
+    private MappedTrainingSet(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining())
+            if (channel.read(header, header.position()) < 0) throw new IOException("Unexpected end of file.");
+        header.flip();
+
+        if (header.getInt() != MAGIC) throw new IOException("File is not a training set.");
+        int version = header.getInt();
+        if (version != VERSION) throw new IOException("Unsupported training set version " + version + ".");
+
+        count = header.getLong();
+        min = header.getDouble();
+        max = header.getDouble();
+
+        if (count < 0 || count > (Long.MAX_VALUE - HEADER_SIZE) / (2 * Double.BYTES))
+            throw new IOException("Invalid number of points " + count + ".");
+
+        if (channel.size() < HEADER_SIZE + 2 * count * Double.BYTES)
+            throw new IOException("File is shorter than " + count + " points.");
+
+        int regions = (int) ((count + REGION_SIZE - 1) / REGION_SIZE);
+        xRegions = new DoubleBuffer[regions];
+        tRegions = new DoubleBuffer[regions];
+
+        for (int r = 0; r < regions; ++r) {
+            long from = (long) r * REGION_SIZE;
+            long length = Math.min(REGION_SIZE, count - from);
+            xRegions[r] = map(HEADER_SIZE + from * Double.BYTES, length);
+            tRegions[r] = map(HEADER_SIZE + (count + from) * Double.BYTES, length);
+        }
+    }
+
+    private DoubleBuffer map(long position, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length * Double.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    /**
+     * Opens training set file for reading.
+     * @param path the Path of the file
+     * @return MappedTrainingSet the mapped set
+     * @throws IOException if the file can't be read or is not a training set
+     */
+    public static MappedTrainingSet open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedTrainingSet(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void forEachChunk(ChunkConsumer consumer) {
+        double[] x = new double[(int) Math.min(CHUNK_SIZE, count)];
+        double[] t = new double[x.length];
+
+        for (int r = 0; r < xRegions.length; ++r) {
+            DoubleBuffer xRegion = xRegions[r].duplicate();
+            DoubleBuffer tRegion = tRegions[r].duplicate();
+
+            while (xRegion.hasRemaining()) {
+                int length = Math.min(CHUNK_SIZE, xRegion.remaining());
+                xRegion.get(x, 0, length);
+                tRegion.get(t, 0, length);
+                consumer.accept(x, t, 0, length);
+            }
+        }
+    }
+
+    /**
+     * @param n the long index of point
+     * @return double the point x[n]
+     */
+    public double x(long n) {
+        return xRegions[(int) (n / REGION_SIZE)].get((int) (n % REGION_SIZE));
+    }
+
+    /**
+     * @param n the long index of point
+     * @return double the target t[n]
+     */
+    public double t(long n) {
+        return tRegions[(int) (n / REGION_SIZE)].get((int) (n % REGION_SIZE));
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public double domainMin() {
+        return min;
+    }
+
+    @Override
+    public double domainMax() {
+        return max;
+    }
+
+    /**
+     * Closes the file, mapped regions stay valid until they are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "MappedTrainingSet{" +
+                "size=" + count +
+                ", range=[" + min + ", " + max + "]}";
+    }
+}
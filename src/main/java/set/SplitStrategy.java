@@ -0,0 +1,170 @@
+package set;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Strategy of splitting a set to training and validation views, which share arrays of the set, see TrainingSetView.
+ * Training view gets round(N * trainingRatio) points, validation view the rest,
+ * stratified split may differ by a point per bin.
+ *
+ * - prefix() takes the first points for training, which is biased if the set is sorted by x
+ * - shuffle(seed) selects a uniformly random subset of points for training, same seed gives the same split
+ * - stratified(bins) splits every bin of the domain in the given ratio, so both views cover the whole domain
+ *
+ * Index views keep indices in increasing order, so the parent arrays are read sequentially.
+ * Shuffled and stratified splits allocate a single int[N] shared by both views, no points are copied.
+ */
+public abstract class SplitStrategy {
+
+    /**
+     * Splits the set to training and validation views.
+     * @param set the TrainingSetView with all points
+     * @param trainingRatio the float ratio of training points in range (0, 1)
+     * @return Split the training and validation views
+     */
+    public abstract Split split(TrainingSetView set, float trainingRatio);
+
+    /**
+     * @return SplitStrategy the split to the first round(N * trainingRatio) points and the rest
+     */
+    public static SplitStrategy prefix() {
+        return new Prefix();
+    }
+
+    /**
+     * @param seed the long seed of the random selection
+     * @return SplitStrategy the split to a random subset of training points and the rest
+     */
+    public static SplitStrategy shuffle(long seed) {
+        return new Shuffle(seed);
+    }
+
+    /**
+     * @param bins the int number of bins of equal width over the domain of the set
+     * @return SplitStrategy the split of every bin in training ratio
+     */
+    public static SplitStrategy stratified(int bins) {
+        if (bins < 1) throw new IllegalArgumentException("Number of bins has to be positive.");
+        return new Stratified(bins);
+    }
+
+    private static int trainingSize(int size, float trainingRatio) {
+        if (!(trainingRatio > 0 && trainingRatio < 1))
+            throw new IllegalArgumentException("Training ratio has to be in range (0, 1).");
+        return Math.round(size * trainingRatio);
+    }
+
+    /**
+     * Training and validation views of a split.
+     */
+    public static final class Split {
+
+        private final TrainingSetView training, validation;
+
+        Split(TrainingSetView training, TrainingSetView validation) {
+            this.training = training;
+            this.validation = validation;
+        }
+
+        public TrainingSetView training() {
+            return training;
+        }
+
+        public TrainingSetView validation() {
+            return validation;
+        }
+    }
+
+    private static class Prefix extends SplitStrategy {
+
+        @Override
+        public Split split(TrainingSetView set, float trainingRatio) {
+            int trainingSize = trainingSize(set.size(), trainingRatio);
+            return new Split(set.slice(0, trainingSize), set.slice(trainingSize, set.size()));
+        }
+    }
+
+    /**
+     * Selection sampling, every point is selected for training with probability
+     * (training points left) / (points left), which gives a uniformly random subset of the exact size in one pass.
+     */
+    private static class Shuffle extends SplitStrategy {
+
+        private final long seed;
+
+        private Shuffle(long seed) {
+            this.seed = seed;
+        }
+
+        @Override
+        public Split split(TrainingSetView set, float trainingRatio) {
+            int size = set.size();
+            int trainingSize = trainingSize(size, trainingRatio);
+            SplittableRandom random = new SplittableRandom(seed);
+
+            int[] index = new int[size]; // training indices, then validation indices
+            int training = 0, validation = trainingSize;
+            for (int n = 0; n < size; ++n) {
+                if (random.nextInt(size - n) < trainingSize - training) index[training++] = n;
+                else index[validation++] = n;
+            }
+            return views(set, index, trainingSize);
+        }
+    }
+
+    /**
+     * Every bin keeps its own share of validation points, a point goes to validation
+     * when the share reaches a whole point, so validation points are spread evenly within bins.
+     */
+    private static class Stratified extends SplitStrategy {
+
+        private final int bins;
+
+        private Stratified(int bins) {
+            this.bins = bins;
+        }
+
+        @Override
+        public Split split(TrainingSetView set, float trainingRatio) {
+            int size = set.size();
+            trainingSize(size, trainingRatio); // checks ratio
+            double min = set.domainMin(), width = (set.domainMax() - min) / bins;
+
+            double[] share = new double[bins];
+            Arrays.fill(share, 0.5); // rounds the number of validation points of every bin
+
+            int[] index = new int[size]; // training indices from the start, validation indices from the end
+            int training = 0, validation = size;
+            for (int n = 0; n < size; ++n) {
+                int bin = width > 0 ? (int) ((set.x(n) - min) / width) : 0;
+                bin = Math.max(0, Math.min(bins - 1, bin));
+
+                share[bin] += 1 - trainingRatio;
+                if (share[bin] >= 1) {
+                    share[bin] -= 1;
+                    index[--validation] = n;
+                } else {
+                    index[training++] = n;
+                }
+            }
+
+            // validation indices were filled backwards
+            for (int i = training, j = size - 1; i < j; ++i, --j) {
+                int swap = index[i];
+                index[i] = index[j];
+                index[j] = swap;
+            }
+            return views(set, index, training);
+        }
+    }
+
+    /**
+     * Creates views of points index[0..trainingSize-1] and index[trainingSize..N-1] of the set,
+     * both share the index array.
+     */
+    private static Split views(TrainingSetView set, int[] index, int trainingSize) {
+        TrainingSetView view = set.select(index);
+        return new Split(view.slice(0, trainingSize), view.slice(trainingSize, index.length));
+    }
+}
@@ -3,7 +3,12 @@ package set;
 import functions.Function;
 import utils.VectorUtils;
 
-public class TrainingSet extends Set {
+/**
+ * Set of points with corresponding targets.
+ * Targets of random sets are computed by Function.parallelF(), so large sets use all cores
+ * and the function has to be thread-safe.
+ */
+public class TrainingSet extends Set implements ChunkedTrainingSet {
 
     private double t[]; // corresponding targets
 
@@ -18,17 +23,55 @@ public class TrainingSet extends Set {
 
     public static TrainingSet randomSorted(Function fun, int size, double domainMin, double domainMax) {
         double[] x = VectorUtils.randomSortedVector(size, domainMin, domainMax);
-        double[] t = fun.f(x);
+        double[] t = fun.parallelF(x);
         return new TrainingSet(x, t, domainMin, domainMax);
     }
 
     public static TrainingSet random(Function fun, int size, double domainMin, double domainMax) {
         double[] x = VectorUtils.randomVector(size, domainMin, domainMax);
-        double[] t = fun.f(x);
+        double[] t = fun.parallelF(x);
+        return new TrainingSet(x, t, domainMin, domainMax);
+    }
+
+    /**
+     * Reproducible variant of randomSorted(), same seed gives the same training set.
+     */
+    public static TrainingSet randomSorted(Function fun, int size, double domainMin, double domainMax, long seed) {
+        double[] x = VectorUtils.randomSortedVector(size, domainMin, domainMax, seed);
+        double[] t = fun.parallelF(x);
+        return new TrainingSet(x, t, domainMin, domainMax);
+    }
+
+    /**
+     * Reproducible variant of random(), same seed gives the same training set.
+     */
+    public static TrainingSet random(Function fun, int size, double domainMin, double domainMax, long seed) {
+        double[] x = VectorUtils.randomVector(size, domainMin, domainMax, seed);
+        double[] t = fun.parallelF(x);
         return new TrainingSet(x, t, domainMin, domainMax);
     }
 
     public double[] targets() {
         return t;
     }
+
+    /**
+     * @return TrainingSetView the view of all points, which shares arrays of this set
+     */
+    public TrainingSetView view() {
+        return TrainingSetView.of(this);
+    }
+
+    /**
+     * Passes whole arrays as a single chunk, nothing is copied.
+     */
+    @Override
+    public void forEachChunk(ChunkConsumer consumer) {
+        consumer.accept(x, t, 0, x.length);
+    }
+
+    @Override
+    public long count() {
+        return x.length;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,316 @@
+package set;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads points and targets from selected columns of a CSV file, or from a binary file, see MappedTrainingSet.
+ *
+ * File is read through FileChannel in large buffers, only complete lines of a buffer are parsed
+ * and the rest is moved to the beginning of the buffer before the next read.
+ * Numbers are parsed directly from bytes without creating strings, see DoubleParser.
+ * Quoted fields are not supported, spaces around fields are ignored, empty lines are skipped.
+ *
+ * Points are passed to a ChunkConsumer in chunks of CHUNK_SIZE, or collected to growing arrays of a TrainingSet.
+ * With an executor the consumer runs on another thread while the next chunk is parsed.
+ * Loader is not thread-safe, use one loader per thread.
+ */
+public class TrainingSetLoader {
+
+    private static final int BUFFER_SIZE = 1 << 22; // bytes read at once
+    private static final int CHUNK_SIZE = 1 << 16; // points passed to consumer at once
+
+    private final int xColumn, tColumn; // zero-based column indices
+    private byte delimiter = ',';
+    private int skipLines = 0; // header lines
+
+    private long line; // number of the line being parsed, for error messages
+
+    /**
+     * @param xColumn the int zero-based index of column with points x
+     * @param tColumn the int zero-based index of column with targets t
+     */
+    public TrainingSetLoader(int xColumn, int tColumn) {
+        if (xColumn < 0 || tColumn < 0 || xColumn == tColumn)
+            throw new IllegalArgumentException("Columns have to be different and non-negative.");
+
+        this.xColumn = xColumn;
+        this.tColumn = tColumn;
+    }
+
+    /**
+     * Sets the column delimiter, comma by default.
+     * @param delimiter the char ASCII delimiter
+     * @return TrainingSetLoader this instance
+     */
+    public TrainingSetLoader delimiter(char delimiter) {
+        if (delimiter > 127 || delimiter == '\n' || delimiter == '\r')
+            throw new IllegalArgumentException("Delimiter has to be an ASCII character other than line break.");
+
+        this.delimiter = (byte) delimiter;
+        return this;
+    }
+
+    /**
+     * Sets number of header lines, which are skipped, none by default.
+     * @param lines the int number of lines
+     * @return TrainingSetLoader this instance
+     */
+    public TrainingSetLoader skipLines(int lines) {
+        if (lines < 0) throw new IllegalArgumentException("Number of skipped lines can't be negative.");
+
+        this.skipLines = lines;
+        return this;
+    }
+
+    /**
+     * Loads the file to a training set with domain given by min and max of loaded points.
+     * If all points are equal, e.g. the file has a single point, the domain is widened
+     * by max(1, |x|) on both sides, since domain's min has to be lower than its max.
+     * @param path the Path of CSV file
+     * @return TrainingSet the training set
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if the file has no points
+     */
+    public TrainingSet load(Path path) throws IOException {
+        Collector collector = collect(path);
+        if (collector.min == collector.max) {
+            double margin = Math.max(1, Math.abs(collector.min));
+            return collector.toTrainingSet(collector.min - margin, collector.max + margin);
+        }
+        return collector.toTrainingSet(collector.min, collector.max);
+    }
+
+    /**
+     * Loads the file to a training set with given domain.
+     * @param path the Path of CSV file
+     * @param domainMin the double domain's min
+     * @param domainMax the double domain's max
+     * @return TrainingSet the training set
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if the file has no points
+     */
+    public TrainingSet load(Path path, double domainMin, double domainMax) throws IOException {
+        return collect(path).toTrainingSet(domainMin, domainMax);
+    }
+
+    private Collector collect(Path path) throws IOException {
+        Collector collector = new Collector();
+        if (load(path, collector) == 0) throw new IllegalArgumentException("File " + path + " has no points.");
+        return collector;
+    }
+
+    /**
+     * Copies chunked set to a training set on the heap, e.g. binary file opened as MappedTrainingSet.
+     * @param set the ChunkedTrainingSet
+     * @return TrainingSet the training set with the same domain
+     */
+    public static TrainingSet load(ChunkedTrainingSet set) {
+        Collector collector = new Collector();
+        set.forEachChunk(collector);
+        return collector.toTrainingSet(set.domainMin(), set.domainMax());
+    }
+
+    /**
+     * Loads the file chunk by chunk, consumer is called in the calling thread.
+     * @param path the Path of CSV file
+     * @param consumer the ChunkConsumer, e.g. StreamingPCF::accept
+     * @return long the number of loaded points
+     * @throws IOException if the file can't be read
+     */
+    public long load(Path path, ChunkedTrainingSet.ChunkConsumer consumer) throws IOException {
+        return load(path, consumer, null);
+    }
+
+    /**
+     * Loads the file chunk by chunk, consumer runs in the executor while the next chunk is parsed.
+     * Chunks are consumed one at a time in file order, two chunk buffers are used alternately.
+     * @param path the Path of CSV file
+     * @param consumer the ChunkConsumer, e.g. StreamingPCF::accept
+     * @param executor the Executor running the consumer, null for the calling thread
+     * @return long the number of loaded points
+     * @throws IOException if the file can't be read
+     */
+    public long load(Path path, ChunkedTrainingSet.ChunkConsumer consumer, Executor executor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new Parser(consumer, executor).parse(channel);
+        }
+    }
+
+    /**
+     * Parses lines of a channel and passes chunks to consumer.
+     */
+    private class Parser {
+
+        private final ChunkedTrainingSet.ChunkConsumer consumer;
+        private final Executor executor;
+
+        private final double[][] x = new double[2][CHUNK_SIZE], t = new double[2][CHUNK_SIZE];
+        private final CompletableFuture<?>[] pending = new CompletableFuture<?>[2]; // consumption of each buffer
+        private CompletableFuture<?> last = CompletableFuture.completedFuture(null); // last submitted consumption
+        private int current; // buffer being filled
+        private int size; // points in the current buffer
+        private long count; // points loaded
+
+        private Parser(ChunkedTrainingSet.ChunkConsumer consumer, Executor executor) {
+            this.consumer = consumer;
+            this.executor = executor;
+        }
+
+        private long parse(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            line = 0;
+            boolean eof = false;
+
+            while (!eof) {
+                eof = channel.read(buffer) < 0;
+                byte[] bytes = buffer.array();
+                int end = buffer.position();
+
+                // parse complete lines, at the end of file the last line doesn't need a line break
+                int parsed = 0;
+                int lineEnd;
+                while ((lineEnd = indexOf(bytes, (byte) '\n', parsed, end)) >= 0 || (eof && parsed < end)) {
+                    if (lineEnd < 0) lineEnd = end;
+                    parseLine(bytes, parsed, lineEnd);
+                    parsed = lineEnd + 1;
+                }
+
+                // move incomplete line to the beginning, grow buffer if the line is longer than buffer
+                if (!eof) {
+                    buffer.position(parsed);
+                    buffer.limit(end);
+                    buffer.compact();
+                    if (!buffer.hasRemaining()) {
+                        ByteBuffer larger = ByteBuffer.allocate(2 * buffer.capacity());
+                        buffer.flip();
+                        larger.put(buffer);
+                        buffer = larger;
+                    }
+                }
+            }
+
+            flush();
+            join(last);
+            return count;
+        }
+
+        private void parseLine(byte[] bytes, int from, int to) {
+            ++line;
+            if (to > from && bytes[to - 1] == '\r') --to;
+            if (line <= skipLines || to == from) return;
+
+            double xn = Double.NaN, tn = Double.NaN;
+            int found = 0;
+            int column = 0;
+            int start = from;
+
+            for (int i = from; i <= to && found < 2; ++i) {
+                if (i < to && bytes[i] != delimiter) continue;
+
+                if (column == xColumn) {
+                    xn = parseDouble(bytes, start, i);
+                    ++found;
+                } else if (column == tColumn) {
+                    tn = parseDouble(bytes, start, i);
+                    ++found;
+                }
+                ++column;
+                start = i + 1;
+            }
+            if (found < 2) throw new IllegalArgumentException("Line " + line + " has only " + column + " columns.");
+
+            x[current][size] = xn;
+            t[current][size] = tn;
+            if (++size == CHUNK_SIZE) flush();
+        }
+
+        /**
+         * Passes the current buffer to consumer and switches to the other one,
+         * which is reused after its previous consumption has finished.
+         */
+        private void flush() {
+            if (size == 0) return;
+
+            final double[] chunkX = x[current], chunkT = t[current];
+            final int length = size;
+            count += size;
+
+            if (executor == null) {
+                consumer.accept(chunkX, chunkT, 0, length);
+            } else {
+                last = last.thenRunAsync(() -> consumer.accept(chunkX, chunkT, 0, length), executor);
+                pending[current] = last;
+                current = 1 - current;
+                if (pending[current] != null) join(pending[current]);
+            }
+            size = 0;
+        }
+
+        private void join(CompletableFuture<?> future) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from, int to) {
+        for (int i = from; i < to; ++i)
+            if (bytes[i] == value) return i;
+        return -1;
+    }
+
+    private double parseDouble(byte[] bytes, int from, int to) {
+        try {
+            return DoubleParser.parse(bytes, from, to);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Invalid number at line " + line + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Collects chunks to growing arrays.
+     */
+    private static class Collector implements ChunkedTrainingSet.ChunkConsumer {
+
+        private double[] x = new double[CHUNK_SIZE], t = new double[CHUNK_SIZE];
+        private int size;
+        private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY; // of x
+
+        @Override
+        public void accept(double[] x, double[] t, int offset, int length) {
+            if (size + length > this.x.length) {
+                long capacity = Math.max(size + length, this.x.length + (this.x.length >> 1));
+                if (capacity > Integer.MAX_VALUE - 8) throw new IllegalStateException("Too many points for TrainingSet.");
+                this.x = Arrays.copyOf(this.x, (int) capacity);
+                this.t = Arrays.copyOf(this.t, (int) capacity);
+            }
+
+            System.arraycopy(x, offset, this.x, size, length);
+            System.arraycopy(t, offset, this.t, size, length);
+            for (int n = offset; n < offset + length; ++n) {
+                min = Math.min(min, x[n]);
+                max = Math.max(max, x[n]);
+            }
+            size += length;
+        }
+
+        private TrainingSet toTrainingSet(double domainMin, double domainMax) {
+            if (size < x.length) {
+                x = Arrays.copyOf(x, size);
+                t = Arrays.copyOf(t, size);
+            }
+            return new TrainingSet(x, t, domainMin, domainMax);
+        }
+    }
+}
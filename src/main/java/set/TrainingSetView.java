@@ -0,0 +1,231 @@
+package set;
+
+/**
+ * View of a part of training set, which shares arrays x and t of the parent set, nothing is copied.
+ *
+ * A view is either a slice, i.e. contiguous range x[offset], ... x[offset + size - 1],
+ * or an index view of points x[index[offset]], ... x[index[offset + size - 1]].
+ * Slices are passed to consumers as a single chunk of the parent arrays,
+ * points of an index view are gathered to small buffers chunk by chunk.
+ * Views are immutable, so they can be shared by threads as long as the parent arrays don't change.
+ *
+ * @see SplitStrategy for splitting to training and validation views.
+ */
+public final class TrainingSetView implements ChunkedTrainingSet {
+
+    private static final int CHUNK_SIZE = 1 << 12; // points of an index view gathered at once
+
+    private final double[] x, t; // parent arrays
+    private final int[] index; // indices to parent arrays, null for a slice
+    private final int offset, size;
+
+    private double min = Double.NaN, max = Double.NaN; // domain, computed on demand if unknown
+
+    private TrainingSetView(double[] x, double[] t, int[] index, int offset, int size) {
+        if (x.length != t.length)
+            throw new IllegalArgumentException("Vector and targets length are not same.");
+
+        this.x = x;
+        this.t = t;
+        this.index = index;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * @return TrainingSetView the view of all points of vectors x and t
+     */
+    public static TrainingSetView of(double[] x, double[] t) {
+        return new TrainingSetView(x, t, null, 0, x.length);
+    }
+
+    /**
+     * @return TrainingSetView the view of all points of the set with the same domain
+     */
+    public static TrainingSetView of(TrainingSet set) {
+        TrainingSetView view = of(set.vector(), set.targets());
+        view.min = set.domainMin();
+        view.max = set.domainMax();
+        return view;
+    }
+
+    /**
+     * Creates index view of points x[index[0]], ... x[index[index.length - 1]], the index array is not copied.
+     * @param x the vector x
+     * @param t the vector t, corresponding targets
+     * @param index the int[] indices of points, which must not change while the view is used
+     * @return TrainingSetView the index view
+     */
+    public static TrainingSetView of(double[] x, double[] t, int[] index) {
+        for (int i : index)
+            if (i < 0 || i >= x.length) throw new IndexOutOfBoundsException("Index " + i + " is out of vector bounds.");
+        return new TrainingSetView(x, t, index, 0, index.length);
+    }
+
+    /**
+     * Creates view of points from..to-1 of this view, which shares the same arrays and known domain.
+     * @param from the int first point, inclusive
+     * @param to the int last point, exclusive
+     * @return TrainingSetView the view
+     */
+    public TrainingSetView slice(int from, int to) {
+        checkRange(from, to);
+        TrainingSetView view = new TrainingSetView(x, t, index, offset + from, to - from);
+        view.min = min;
+        view.max = max;
+        return view;
+    }
+
+    /**
+     * Creates index view of points positions[0], ... positions[positions.length - 1] of this view.
+     * Positions are translated to indices of the parent arrays in place, so the array is owned by the new view.
+     * @param positions the int[] indices of points of this view
+     * @return TrainingSetView the index view
+     */
+    TrainingSetView select(int[] positions) {
+        for (int i = 0; i < positions.length; ++i)
+            positions[i] = position(positions[i]);
+        TrainingSetView view = new TrainingSetView(x, t, positions, 0, positions.length);
+        view.min = min;
+        view.max = max;
+        return view;
+    }
+
+    /**
+     * @param i the int index of point in this view
+     * @return double the point x
+     */
+    public double x(int i) {
+        return x[position(i)];
+    }
+
+    /**
+     * @param i the int index of point in this view
+     * @return double the target t
+     */
+    public double t(int i) {
+        return t[position(i)];
+    }
+
+    private int position(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Index " + i + " is out of view of size " + size + ".");
+        return index == null ? offset + i : index[offset + i];
+    }
+
+    /**
+     * Copies points of this view in order to the beginning of vectors x and t.
+     * @param x the vector with at least size() points
+     * @param t the vector with at least size() targets
+     */
+    public void copyTo(double[] x, double[] t) {
+        if (x.length < size || t.length < size)
+            throw new IndexOutOfBoundsException("Vectors are shorter than view of size " + size + ".");
+
+        if (index == null) {
+            System.arraycopy(this.x, offset, x, 0, size);
+            System.arraycopy(this.t, offset, t, 0, size);
+            return;
+        }
+
+        for (int i = 0; i < size; ++i) {
+            int n = index[offset + i];
+            x[i] = this.x[n];
+            t[i] = this.t[n];
+        }
+    }
+
+    /**
+     * @return int the number of points of this view
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return boolean true if the view is a contiguous range of the parent arrays
+     */
+    public boolean isSlice() {
+        return index == null;
+    }
+
+    @Override
+    public void forEachChunk(ChunkConsumer consumer) {
+        forEachChunk(0, size, consumer);
+    }
+
+    /**
+     * Passes points from..to-1 of this view to the consumer in order.
+     * Slice is passed as a single chunk of the parent arrays, index view in gathered chunks,
+     * buffers are local to the call, so ranges of the same view can be consumed in parallel.
+     * @param from the int first point, inclusive
+     * @param to the int last point, exclusive
+     * @param consumer the ChunkConsumer
+     */
+    public void forEachChunk(int from, int to, ChunkConsumer consumer) {
+        checkRange(from, to);
+        if (from == to) return;
+
+        if (index == null) {
+            consumer.accept(x, t, offset + from, to - from);
+            return;
+        }
+
+        double[] chunkX = new double[Math.min(CHUNK_SIZE, to - from)];
+        double[] chunkT = new double[chunkX.length];
+        for (int start = offset + from; start < offset + to; start += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, offset + to - start);
+            for (int i = 0; i < length; ++i) {
+                int n = index[start + i];
+                chunkX[i] = x[n];
+                chunkT[i] = t[n];
+            }
+            consumer.accept(chunkX, chunkT, 0, length);
+        }
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to > size || from > to)
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") is out of view of size " + size + ".");
+    }
+
+    @Override
+    public long count() {
+        return size;
+    }
+
+    /**
+     * @return double the domain's min of the parent set, or min of points of this view if the domain is unknown
+     */
+    @Override
+    public double domainMin() {
+        if (Double.isNaN(min)) setDomain();
+        return min;
+    }
+
+    /**
+     * @return double the domain's max of the parent set, or max of points of this view if the domain is unknown
+     */
+    @Override
+    public double domainMax() {
+        if (Double.isNaN(max)) setDomain();
+        return max;
+    }
+
+    private void setDomain() {
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; ++i) {
+            double xi = x[index == null ? offset + i : index[offset + i]];
+            if (xi < min) min = xi;
+            if (xi > max) max = xi;
+        }
+        this.max = max;
+        this.min = min;
+    }
+
+    @Override
+    public String toString() {
+        return "TrainingSetView{" +
+                "size=" + size +
+                ", " + (index == null ? "slice=[" + offset + ", " + (offset + size) + ")" : "indexed") + "}";
+    }
+}
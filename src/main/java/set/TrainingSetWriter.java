@@ -0,0 +1,125 @@
+package set;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static set.MappedTrainingSet.HEADER_SIZE;
+
+/**
+ * Writes training set of known size to a binary column file, see MappedTrainingSet for the format.
+ * Points are appended in order and buffered, both columns are written at their positions in the file.
+ */
+public class TrainingSetWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16; // points buffered before write
+
+    private final FileChannel channel;
+    private final long count;
+    private final ByteBuffer x, t;
+    private long written; // number of points written to the file
+
+    /**
+     * Creates the file, an existing file is overwritten.
+     * @param path the Path of the file
+     * @param count the long number of points, which will be appended
+     * @param domainMin the double domain's min
+     * @param domainMax the double domain's max
+     * @throws IOException if the file can't be written
+     */
+    public TrainingSetWriter(Path path, long count, double domainMin, double domainMax) throws IOException {
+        if (domainMin >= domainMax) throw new IllegalArgumentException("Domain's min can't be greater than domain's max");
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.count = count;
+        this.x = ByteBuffer.allocateDirect(BUFFER_SIZE * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        this.t = ByteBuffer.allocateDirect(BUFFER_SIZE * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MappedTrainingSet.MAGIC)
+                .putInt(MappedTrainingSet.VERSION)
+                .putLong(count)
+                .putDouble(domainMin)
+                .putDouble(domainMax)
+                .flip();
+        write(header, 0);
+    }
+
+    /**
+     * Writes whole training set to the file.
+     * @param path the Path of the file
+     * @param set the TrainingSet
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Path path, TrainingSet set) throws IOException {
+        try (TrainingSetWriter writer = new TrainingSetWriter(path, set.size(), set.domainMin(), set.domainMax())) {
+            writer.append(set.vector(), set.targets(), 0, set.size());
+        }
+    }
+
+    /**
+     * Appends a single point.
+     * @param x the double point
+     * @param t the double corresponding target
+     * @return TrainingSetWriter this instance
+     * @throws IOException if the file can't be written
+     */
+    public TrainingSetWriter append(double x, double t) throws IOException {
+        if (written + this.x.position() / Double.BYTES == count)
+            throw new IllegalStateException("All " + count + " points have been written.");
+
+        this.x.putDouble(x);
+        this.t.putDouble(t);
+        if (!this.x.hasRemaining()) flush();
+        return this;
+    }
+
+    /**
+     * Appends points x[offset], ... x[offset + length - 1] with corresponding targets.
+     * @return TrainingSetWriter this instance
+     * @throws IOException if the file can't be written
+     */
+    public TrainingSetWriter append(double[] x, double[] t, int offset, int length) throws IOException {
+        if (x.length != t.length)
+            throw new IllegalArgumentException("Vector and targets length are not same.");
+
+        for (int n = offset; n < offset + length; ++n)
+            append(x[n], t[n]);
+        return this;
+    }
+
+    private void flush() throws IOException {
+        int points = x.position() / Double.BYTES;
+        x.flip();
+        t.flip();
+        write(x, HEADER_SIZE + written * Double.BYTES);
+        write(t, HEADER_SIZE + (count + written) * Double.BYTES);
+        x.clear();
+        t.clear();
+        written += points;
+    }
+
+    private void write(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    /**
+     * Writes buffered points and closes the file.
+     * @throws IllegalStateException if fewer points than declared were appended
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            if (written != count)
+                throw new IllegalStateException("Only " + written + " of " + count + " points have been written.");
+        } finally {
+            channel.close();
+        }
+    }
+}
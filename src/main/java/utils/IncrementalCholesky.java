@@ -0,0 +1,144 @@
+package utils;
+
+import static java.lang.Math.sqrt;
+import static java.lang.Math.ulp;
+
+/**
+ * Cholesky decomposition A = L * L' of symmetric positive definite matrix, extended one row at a time.
+ *
+ * Matrix A of size d+1 has to extend matrix of size d by one row and column,
+ * as normal equations of polynomial fitting do when the degree grows.
+ * Extending costs O(d^2), leading block of L of size k is the decomposition of leading block of A,
+ * so equations of every smaller size can be solved as well.
+ * Right-hand side is extended together with A and forward substitution L * y = b is kept up to date.
+ *
+ * Row is rejected when its pivot is not clearly above rounding error of the decomposition, i.e.
+ * pivot <= PIVOT_TOLERANCE * (d+1) * A[d][d]. Rounding error of the pivot is about (d+1) * eps * A[d][d],
+ * since sum(L[d][k]^2) <= A[d][d]. The test depends only on the row itself, so it doesn't change when A is scaled
+ * as D * A * D by a diagonal D, e.g. when x is scaled, and every row has the same relative accuracy.
+ * PIVOT_TOLERANCE = 1024 * eps keeps about three significant digits of the pivot,
+ * so nearly singular systems fail instead of producing garbage.
+ *
+ * All data are kept in flat arrays allocated once for given capacity.
+ */
+public class IncrementalCholesky {
+
+    private static final double PIVOT_TOLERANCE = 1024 * ulp(1.0); // relative to (d+1) * A[d][d]
+
+    private final int capacity;
+    private final double[] L; // lower triangular matrix, L[i][j] = L[i * capacity + j]
+    private final double[] y; // solution of L * y = b
+    private int size;
+
+    /**
+     * @param capacity the int max size of matrix A
+     */
+    public IncrementalCholesky(int capacity) {
+        this.capacity = capacity;
+        this.L = new double[capacity * capacity];
+        this.y = new double[capacity];
+    }
+
+    /**
+     * Removes all rows, allocated arrays are reused.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * Extends matrix A by row A[d][j] = row[offset + j], j = 0..d, where d = size(), and right-hand side by b[d].
+     * Fails when the pivot is not larger than PIVOT_TOLERANCE * (d+1) * A[d][d],
+     * i.e. extended matrix is not numerically positive definite. The decomposition stays unchanged in that case.
+     * @param row the double[] with row of matrix A
+     * @param offset the int position of A[d][0] in row
+     * @param b the double right-hand side b[d]
+     * @return boolean true if extended, false if extended matrix is not positive definite
+     */
+    public boolean extend(double[] row, int offset, double b) {
+        if (size == capacity) throw new IllegalStateException("Decomposition is full.");
+
+        int d = size;
+        int rowD = d * capacity;
+
+        for (int j = 0; j < d; ++j) {
+            int rowJ = j * capacity;
+            double sum = row[offset + j];
+            for (int k = 0; k < j; ++k)
+                sum -= L[rowD + k] * L[rowJ + k];
+            L[rowD + j] = sum / L[rowJ + j];
+        }
+
+        double diagonal = row[offset + d];
+        double pivot = diagonal;
+        for (int k = 0; k < d; ++k)
+            pivot -= L[rowD + k] * L[rowD + k];
+
+        if (!(pivot > PIVOT_TOLERANCE * (d + 1) * diagonal)) return false;
+
+        L[rowD + d] = sqrt(pivot);
+
+        double sum = b;
+        for (int k = 0; k < d; ++k)
+            sum -= L[rowD + k] * y[k];
+        y[d] = sum / L[rowD + d];
+
+        ++size;
+        return true;
+    }
+
+    /**
+     * Solves equation sum(A[i][j] * w[j]) from j=0 to n-1 = b[i] for leading block of size n.
+     * @param n the int size of leading block, n <= size()
+     * @param w the double[] for the solution, at least n long
+     */
+    public void solve(int n, double[] w) {
+        if (n > size) throw new IllegalArgumentException("Decomposition has only " + size + " rows.");
+        backSubstitute(n, y, w);
+    }
+
+    /**
+     * Solves equation sum(A[i][j] * w[j]) from j=0 to n-1 = b[i] for leading block of size n and other
+     * right-hand side than the extended one, so one decomposition solves equations of many right-hand sides.
+     * @param n the int size of leading block, n <= size()
+     * @param b the double[] right-hand side, at least n long
+     * @param w the double[] for the solution, at least n long
+     */
+    public void solve(int n, double[] b, double[] w) {
+        if (n > size) throw new IllegalArgumentException("Decomposition has only " + size + " rows.");
+
+        // forward substitution L * z = b, z is stored in w
+        for (int i = 0; i < n; ++i) {
+            int rowI = i * capacity;
+            double sum = b[i];
+            for (int k = 0; k < i; ++k)
+                sum -= L[rowI + k] * w[k];
+            w[i] = sum / L[rowI + i];
+        }
+        backSubstitute(n, w, w);
+    }
+
+    /**
+     * Back substitution L' * w = z, z and w may be the same array.
+     */
+    private void backSubstitute(int n, double[] z, double[] w) {
+        for (int i = n - 1; i >= 0; --i) {
+            double sum = z[i];
+            for (int k = i + 1; k < n; ++k)
+                sum -= L[k * capacity + i] * w[k];
+            w[i] = sum / L[i * capacity + i];
+        }
+    }
+
+    /**
+     * Getter for size of decomposed matrix.
+     * @return int the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
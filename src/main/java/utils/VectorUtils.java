@@ -1,25 +1,116 @@
 package utils;
 
-import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
+/**
+ * Random vectors with values uniformly distributed in [min, max).
+ *
+ * Vectors are filled in parallel chunks of CHUNK_SIZE values, every chunk has its own generator
+ * split from the given one in chunk order, so vectors generated with the same seed are the same
+ * regardless of number of threads. Methods without a seed use a randomly seeded generator.
+ */
 public class VectorUtils {
 
-    private static double randomDouble(double min, double max) {
-        double range = (max - min);
-        return (Math.random() * range) + min;
-    }
+    private static final int CHUNK_SIZE = 1 << 16; // values generated by one generator
 
     public static double[] randomVector(int size, double min, double max) {
+        return randomVector(size, min, max, new SplittableRandom());
+    }
+
+    public static double[] randomVector(int size, double min, double max, long seed) {
+        return randomVector(size, min, max, new SplittableRandom(seed));
+    }
+
+    /**
+     * @param size the int vector size
+     * @param min the double min value
+     * @param max the double max value, exclusive
+     * @param random the SplittableRandom, chunk generators are split from it
+     * @return double[] the random vector
+     */
+    public static double[] randomVector(int size, double min, double max, SplittableRandom random) {
         double[] x = new double[size];
+        double range = max - min;
+        SplittableRandom[] generators = split(size, random);
 
-        for (int i = 0; i < size; ++i)
-            x[i] = randomDouble(min, max);
+        forEachChunk(size, c -> {
+            SplittableRandom generator = generators[c];
+            for (int i = c * CHUNK_SIZE; i < Math.min(size, (c + 1) * CHUNK_SIZE); ++i)
+                x[i] = generator.nextDouble() * range + min;
+        });
         return x;
     }
 
     public static double[] randomSortedVector(int size, double min, double max) {
-        double[] x = randomVector(size, min, max);
-        Arrays.sort(x);
+        return randomSortedVector(size, min, max, new SplittableRandom());
+    }
+
+    public static double[] randomSortedVector(int size, double min, double max, long seed) {
+        return randomSortedVector(size, min, max, new SplittableRandom(seed));
+    }
+
+    /**
+     * Generates sorted vector in O(N) without sorting.
+     * Spacings between N sorted uniform values and the bounds are distributed as N+1 exponential variables
+     * normalized by their sum, so x[i] = min + (max - min) * (E[0] + ... + E[i]) / (E[0] + ... + E[N]).
+     * Prefix sums are computed per chunk in parallel, chunk offsets are added afterwards.
+     * @param size the int vector size
+     * @param min the double min value
+     * @param max the double max value
+     * @param random the SplittableRandom, chunk generators are split from it
+     * @return double[] the random vector in increasing order
+     */
+    public static double[] randomSortedVector(int size, double min, double max, SplittableRandom random) {
+        double[] x = new double[size];
+        SplittableRandom[] generators = split(size, random);
+        double[] chunkSums = new double[generators.length];
+
+        // prefix sums of exponential spacings within each chunk
+        forEachChunk(size, c -> {
+            SplittableRandom generator = generators[c];
+            double sum = 0;
+            for (int i = c * CHUNK_SIZE; i < Math.min(size, (c + 1) * CHUNK_SIZE); ++i) {
+                sum += -Math.log(1 - generator.nextDouble());
+                x[i] = sum;
+            }
+            chunkSums[c] = sum;
+        });
+
+        double[] offsets = new double[generators.length];
+        double total = 0;
+        for (int c = 0; c < generators.length; ++c) {
+            offsets[c] = total;
+            total += chunkSums[c];
+        }
+        total += -Math.log(1 - random.nextDouble()); // spacing between the last value and max
+
+        double scale = (max - min) / total;
+        forEachChunk(size, c -> {
+            double offset = offsets[c];
+            for (int i = c * CHUNK_SIZE; i < Math.min(size, (c + 1) * CHUNK_SIZE); ++i)
+                x[i] = Math.min(min + (offset + x[i]) * scale, max);
+        });
         return x;
     }
+
+    /**
+     * Splits one generator per chunk in chunk order.
+     */
+    private static SplittableRandom[] split(int size, SplittableRandom random) {
+        SplittableRandom[] generators = new SplittableRandom[(size + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        for (int c = 0; c < generators.length; ++c)
+            generators[c] = random.split();
+        return generators;
+    }
+
+    /**
+     * Runs action for every chunk index in parallel.
+     */
+    private static void forEachChunk(int size, IntConsumer action) {
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunks == 1) action.accept(0);
+        else IntStream.range(0, chunks).parallel().forEach(action);
+    }
 }
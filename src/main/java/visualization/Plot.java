@@ -1,6 +1,10 @@
 package visualization;
 
+import visualization.model.Decimation;
 import visualization.model.Figure;
+import visualization.model.Scatter;
+
+import java.util.List;
 
 import static visualization.Plotter.DIR_PLOTS;
 import static visualization.Plotter.SEP;
@@ -14,6 +18,7 @@ public class Plot {
     private String filename;
     private Figure figure;
     private boolean auto_open = false;
+    private transient Decimation decimation; // of this plot only, null for traces of the figure as they are
 
     public Plot(Figure figure, String filename) {
         this.figure = figure;
@@ -25,7 +30,46 @@ public class Plot {
         return this;
     }
 
+    /**
+     * Limits number of points of every trace by Largest-Triangle-Three-Buckets decimation.
+     * @param targetPoints the int max number of points of a trace
+     * @return Plot this instance
+     */
+    public Plot maxPoints(int targetPoints) {
+        return decimation(Decimation.lttb(targetPoints));
+    }
+
+    /**
+     * Sets decimation of traces of this plot, it is applied to traces added to the figure when the plot is written,
+     * so other plots of the same figure and the figure itself are not changed.
+     * @param decimation the Decimation, null for traces of the figure as they are
+     * @return Plot this instance
+     */
+    public Plot decimation(Decimation decimation) {
+        this.decimation = decimation;
+        return this;
+    }
+
     boolean isReady() {
         return figure.containsData();
     }
+
+    String filename() {
+        return filename;
+    }
+
+    Figure figure() {
+        return figure;
+    }
+
+    /**
+     * @return List<Scatter> the traces of the figure decimated by decimation of this plot
+     */
+    List<Scatter> traces() {
+        return decimation == null ? figure.traces() : figure.traces(decimation);
+    }
+
+    boolean isAutoOpen() {
+        return auto_open;
+    }
 }
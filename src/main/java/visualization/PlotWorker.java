@@ -0,0 +1,229 @@
+package visualization;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived python process plotting queued plot files, so interpreter startup and plotly import are paid once.
+ *
+ * Worker runs the plotting script with argument --daemon and writes path of every plot file
+ * as a line to its stdin, the script answers every path by line "ok" or "error message" on its stdout.
+ * Jobs are processed in order, a reader thread completes their futures as answers arrive.
+ *
+ * Process is started lazily by the first job. If it dies, jobs without answer are sent to a new process,
+ * a job which is being plotted when the process dies MAX_ATTEMPTS times fails,
+ * all jobs fail if the process has never answered, since the script can't run at all.
+ * close() closes stdin of the process, so it plots remaining jobs and exits, and waits for it.
+ */
+class PlotWorker implements Closeable {
+
+    private static System.Logger LOGGER = System.getLogger(PlotWorker.class.getName());
+
+    private static final int MAX_ATTEMPTS = 2; // processes a job may crash before it fails
+    private static final long SHUTDOWN_TIMEOUT = 60; // seconds to finish remaining jobs on close
+
+    private final List<String> command;
+
+    private Process process;
+    private BufferedWriter input; // stdin of the process
+    private final Deque<Job> pending = new ArrayDeque<>(); // jobs without answer in order of submission
+    private boolean answered; // some job has been answered, i.e. the script can run
+    private boolean closed;
+
+    /**
+     * @param command the command running the script in daemon mode, e.g. python Visualize.py --daemon
+     */
+    PlotWorker(List<String> command) {
+        this.command = new ArrayList<>(command);
+    }
+
+    /**
+     * Sends plot file to the worker process, starts the process if it isn't running.
+     * @param file the File with plot data, the script removes it after plotting
+     * @return CompletableFuture the future completed when the plot is done, exceptionally if it fails
+     */
+    synchronized CompletableFuture<Void> submit(File file) {
+        Job job = new Job(file.getAbsolutePath());
+        if (closed) {
+            job.future.completeExceptionally(new IllegalStateException("Plot worker is closed."));
+            return job.future;
+        }
+
+        pending.addLast(job);
+        if (process == null) {
+            try {
+                start();
+            } catch (IOException e) {
+                failAll(e);
+            }
+        } else {
+            send(job);
+        }
+        return job.future;
+    }
+
+    /**
+     * Starts new process and sends all pending jobs to it.
+     * @throws IOException if the process can't be started
+     */
+    private void start() throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT);
+        Process started = builder.start();
+        process = started;
+        input = new BufferedWriter(new OutputStreamWriter(started.getOutputStream(), StandardCharsets.UTF_8));
+
+        Thread reader = new Thread(() -> read(started), "plot-worker-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        for (Job job : pending)
+            send(job);
+    }
+
+    /**
+     * Writes path of the job to the process, if the process has died the job is sent again after restart.
+     */
+    private void send(Job job) {
+        try {
+            input.write(job.path);
+            input.newLine();
+            input.flush();
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.DEBUG, "Plot worker doesn't accept jobs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads answers of the process until its stdout is closed, then handles its exit.
+     */
+    private void read(Process process) {
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = output.readLine()) != null)
+                answer(line);
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.ERROR, e.getMessage());
+        }
+        exited(process);
+    }
+
+    private synchronized void answer(String line) {
+        Job job = pending.pollFirst();
+        if (job == null) {
+            LOGGER.log(System.Logger.Level.ERROR, "Unexpected answer of plot worker: " + line);
+            return;
+        }
+
+        answered = true;
+        if (line.equals("ok")) job.future.complete(null);
+        else job.future.completeExceptionally(new IOException("Plot " + job.path + " failed: " + line.replaceFirst("^error ?", "")));
+    }
+
+    /**
+     * Reaps exited process and restarts it if some jobs haven't been answered.
+     */
+    private void exited(Process exited) {
+        int status = waitFor(exited);
+        synchronized (this) {
+            restart(exited, status);
+        }
+    }
+
+    private void restart(Process exited, int status) {
+        if (exited != process) return;
+        process = null;
+        closeInput();
+
+        if (pending.isEmpty()) return;
+
+        Job crashed = pending.peekFirst();
+        LOGGER.log(System.Logger.Level.ERROR, "Plot worker exited with status " + status + " while plotting " + crashed.path + ".");
+        if (++crashed.attempts >= MAX_ATTEMPTS) {
+            pending.pollFirst();
+            crashed.future.completeExceptionally(new IOException("Plot worker exited with status " + status + " while plotting " + crashed.path + "."));
+        }
+
+        // a worker which has never answered is not restarted for every job, e.g. if plotly is missing
+        if (closed || pending.isEmpty() || (!answered && crashed.attempts >= MAX_ATTEMPTS)) {
+            failAll(new IOException("Plot worker exited with status " + status + "."));
+            return;
+        }
+        try {
+            start();
+        } catch (IOException e) {
+            failAll(e);
+        }
+    }
+
+    private int waitFor(Process process) {
+        try {
+            return process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private void failAll(Exception cause) {
+        Job job;
+        while ((job = pending.pollFirst()) != null)
+            job.future.completeExceptionally(cause);
+    }
+
+    private void closeInput() {
+        try {
+            if (input != null) input.close();
+        } catch (IOException e) {
+            // process has already exited
+        }
+        input = null;
+    }
+
+    /**
+     * Lets the process plot remaining jobs and waits for its exit at most SHUTDOWN_TIMEOUT seconds,
+     * then the process is destroyed. Jobs submitted after close fail.
+     */
+    @Override
+    public void close() {
+        Process running;
+        synchronized (this) {
+            closed = true;
+            running = process;
+            closeInput();
+        }
+        if (running == null) return;
+
+        try {
+            if (!running.waitFor(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                LOGGER.log(System.Logger.Level.ERROR, "Plot worker didn't finish in " + SHUTDOWN_TIMEOUT + " s, it is destroyed.");
+                running.destroyForcibly().waitFor();
+            }
+        } catch (InterruptedException e) {
+            running.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Job {
+
+        private final String path;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private int attempts; // processes which died while plotting the job
+
+        private Job(String path) {
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package visualization;
+
+import visualization.model.Figure;
+import visualization.model.Scatter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Writes plot as JSON straight to a channel through a fixed buffer, no string of the whole plot is built.
+ *
+ * JSON has the same structure as Gson serialization of Plot,
+ * {"filename": ..., "figure": {"data": [{"visible": ..., "name": ..., "x": [...], "y": [...]}, ...],
+ * "layout": {"title": ...}}, "auto_open": ...}, null strings are omitted and non-finite numbers are written as null.
+ *
+ * Numbers are written with given number of significant digits and without trailing zeros,
+ * 16 or 17 digits write Double.toString(), which is round-trip exact, i.e. read back as the same double.
+ * Binary encoding writes arrays x and y as plotly typed arrays {"dtype": "f8", "bdata": base64},
+ * where bdata are little-endian doubles, which Visualize.py decodes.
+ * Writer is not thread-safe, use one writer per thread.
+ */
+public class PlotWriter {
+
+    private static final int MAX_DIGITS = 17; // enough for every double
+    private static final int BUFFER_SIZE = 1 << 16; // bytes written at once
+    private static final int BINARY_CHUNK = 3 * 1024; // doubles encoded at once, 8 bytes each, so a multiple of 3 bytes
+
+    private static final double[] POWERS_OF_TEN = powersOfTen(); // 10^0 ... 10^308, nearest doubles
+    private static final long[] LONG_POWERS_OF_TEN = longPowersOfTen(); // 10^0 ... 10^18
+
+    private int significantDigits = MAX_DIGITS;
+    private boolean binary = false;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+    private WritableByteChannel channel;
+
+    /**
+     * Sets number of significant digits of written numbers, 17 by default, i.e. doubles are written exactly.
+     * @param significantDigits the int number of digits from 1 to 17
+     * @return PlotWriter this instance
+     */
+    public PlotWriter significantDigits(int significantDigits) {
+        this.significantDigits = checkSignificantDigits(significantDigits);
+        return this;
+    }
+
+    /**
+     * @param significantDigits the int number of digits
+     * @return int the same number of digits, if it is from 1 to 17
+     */
+    static int checkSignificantDigits(int significantDigits) {
+        if (significantDigits < 1 || significantDigits > MAX_DIGITS)
+            throw new IllegalArgumentException("Significant digits have to be in range [1, " + MAX_DIGITS + "].");
+        return significantDigits;
+    }
+
+    /**
+     * Sets binary encoding of arrays x and y, which is exact and takes about 11 bytes per number, false by default.
+     * @param binary the boolean true for base64 encoded little-endian doubles
+     * @return PlotWriter this instance
+     */
+    public PlotWriter binary(boolean binary) {
+        this.binary = binary;
+        return this;
+    }
+
+    /**
+     * Writes plot to a file, an existing file is overwritten.
+     * @param plot the Plot
+     * @param path the Path of the file
+     * @throws IOException if the file can't be written
+     */
+    public void write(Plot plot, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(plot, channel);
+        }
+    }
+
+    /**
+     * Writes plot to a channel, which is not closed.
+     * @param plot the Plot
+     * @param channel the WritableByteChannel
+     * @throws IOException if the channel can't be written
+     */
+    public void write(Plot plot, WritableByteChannel channel) throws IOException {
+        this.channel = channel;
+        buffer.clear();
+        try {
+            put('{');
+            if (plot.filename() != null) {
+                putName("filename");
+                putString(plot.filename());
+                put(',');
+            }
+            putName("figure");
+            putFigure(plot.figure(), plot.traces());
+            put(',');
+            putName("auto_open");
+            putAscii(String.valueOf(plot.isAutoOpen()));
+            put('}');
+            flush();
+        } finally {
+            this.channel = null;
+        }
+    }
+
+    private void putFigure(Figure figure, List<Scatter> traces) throws IOException {
+        put('{');
+        putName("data");
+        put('[');
+        boolean first = true;
+        for (Scatter trace : traces) {
+            if (!first) put(',');
+            putScatter(trace);
+            first = false;
+        }
+        put(']');
+
+        if (figure.layout() != null) {
+            put(',');
+            putName("layout");
+            put('{');
+            if (figure.layout().title() != null) {
+                putName("title");
+                putString(figure.layout().title());
+            }
+            put('}');
+        }
+        put('}');
+    }
+
+    private void putScatter(Scatter trace) throws IOException {
+        put('{');
+        putName("visible");
+        putAscii(String.valueOf(trace.isVisible()));
+        if (trace.name() != null) {
+            put(',');
+            putName("name");
+            putString(trace.name());
+        }
+        put(',');
+        putName("x");
+        putArray(trace.x());
+        put(',');
+        putName("y");
+        putArray(trace.y());
+        put('}');
+    }
+
+    private void putArray(double[] values) throws IOException {
+        if (binary) {
+            putBinary(values);
+            return;
+        }
+
+        put('[');
+        for (int i = 0; i < values.length; ++i) {
+            if (i > 0) put(',');
+            putNumber(values[i]);
+        }
+        put(']');
+    }
+
+    /**
+     * Writes {"dtype": "f8", "bdata": base64} in chunks of BINARY_CHUNK doubles,
+     * every chunk but the last one has a multiple of 3 bytes, so no padding is inside the base64 string.
+     */
+    private void putBinary(double[] values) throws IOException {
+        putAscii("{\"dtype\":\"f8\",\"bdata\":\"");
+
+        Base64.Encoder encoder = Base64.getEncoder();
+        ByteBuffer bytes = ByteBuffer.allocate(BINARY_CHUNK * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] encoded = new byte[4 * BINARY_CHUNK * Double.BYTES / 3];
+
+        for (int from = 0; from < values.length; from += BINARY_CHUNK) {
+            int length = Math.min(BINARY_CHUNK, values.length - from);
+            bytes.clear();
+            bytes.asDoubleBuffer().put(values, from, length);
+
+            byte[] source = length == BINARY_CHUNK ? bytes.array() : Arrays.copyOf(bytes.array(), length * Double.BYTES);
+            int size = encoder.encode(source, encoded);
+            put(encoded, size);
+        }
+        putAscii("\"}");
+    }
+
+    /**
+     * Writes number rounded to significant digits, as integer, decimal or with exponent, whichever is usual.
+     */
+    private void putNumber(double value) throws IOException {
+        if (!Double.isFinite(value)) {
+            putAscii("null");
+            return;
+        }
+        if (value == 0) {
+            put('0');
+            return;
+        }
+        if (significantDigits >= 16 || Math.abs(value) < 1e-290) {
+            putAscii(Double.toString(value));
+            return;
+        }
+
+        if (value < 0) {
+            put('-');
+            value = -value;
+        }
+
+        // value = m * 10^(e - d + 1), where m has d digits, log10 may be off by one near powers of ten
+        int d = significantDigits;
+        int e = (int) Math.floor(Math.log10(value));
+        long m = Math.round(scale(value, d - 1 - e));
+        if (m < LONG_POWERS_OF_TEN[d - 1]) m = Math.round(scale(value, d - 1 - --e));
+        if (m >= LONG_POWERS_OF_TEN[d]) m = Math.round(scale(value, d - 1 - ++e));
+
+        while (d > 1 && m % 10 == 0) {
+            m /= 10;
+            --d;
+        }
+        for (int i = d - 1; i >= 0; --i, m /= 10)
+            digits[i] = (byte) ('0' + m % 10);
+
+        if (e >= 0 && e < 21) {
+            if (e >= d - 1) {
+                put(digits, d);
+                for (int i = d - 1; i < e; ++i) put('0');
+            } else {
+                put(digits, e + 1);
+                put('.');
+                put(digits, e + 1, d - e - 1);
+            }
+        } else if (e < 0 && e > -7) {
+            put('0');
+            put('.');
+            for (int i = -1; i > e; --i) put('0');
+            put(digits, d);
+        } else {
+            put(digits[0]);
+            if (d > 1) {
+                put('.');
+                put(digits, 1, d - 1);
+            }
+            put('e');
+            putAscii(Integer.toString(e));
+        }
+    }
+
+    private static double scale(double value, int power) {
+        return power >= 0 ? value * POWERS_OF_TEN[power] : value / POWERS_OF_TEN[-power];
+    }
+
+    private void putName(String name) throws IOException {
+        putString(name);
+        put(':');
+    }
+
+    /**
+     * Writes JSON string, quotes, backslashes and control characters are escaped, other characters are UTF-8.
+     */
+    private void putString(String value) throws IOException {
+        put('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                put('\\');
+                put((byte) c);
+            } else if (c < 0x20) {
+                putAscii(String.format("\\u%04x", (int) c));
+            } else if (c < 0x80) {
+                put((byte) c);
+            } else {
+                int end = Character.isHighSurrogate(c) && i + 1 < value.length() ? i + 2 : i + 1;
+                byte[] bytes = value.substring(i, end).getBytes(StandardCharsets.UTF_8);
+                put(bytes, bytes.length);
+                i = end - 1;
+            }
+        }
+        put('"');
+    }
+
+    private void putAscii(String value) throws IOException {
+        for (int i = 0; i < value.length(); ++i)
+            put((byte) value.charAt(i));
+    }
+
+    private void put(char c) throws IOException {
+        put((byte) c);
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) flush();
+        buffer.put(b);
+    }
+
+    private void put(byte[] bytes, int length) throws IOException {
+        put(bytes, 0, length);
+    }
+
+    private void put(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) flush();
+            int size = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, size);
+            offset += size;
+            length -= size;
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    private static double[] powersOfTen() {
+        double[] powers = new double[309];
+        for (int i = 0; i < powers.length; ++i)
+            powers[i] = Double.parseDouble("1e" + i);
+        return powers;
+    }
+
+    private static long[] longPowersOfTen() {
+        long[] powers = new long[19];
+        powers[0] = 1;
+        for (int i = 1; i < powers.length; ++i)
+            powers[i] = 10 * powers[i - 1];
+        return powers;
+    }
+}
@@ -1,12 +1,16 @@
 package visualization;
 
-import com.google.gson.Gson;
-
 import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
  * Plots using plotly via python script
+ * Plots are queued to files and plotted by a single long-lived python process shared by all plotters,
+ * see PlotWorker. The process is started by the first plot and finishes queued plots before JVM exits.
+ * Plot files are written by PlotWriter, number precision and binary encoding of arrays are configurable.
  * @author Ondrej Kratochvil
  */
 public class Plotter {
@@ -18,37 +22,84 @@ public class Plotter {
     static final String DIR_PLOTS = "plots";
     static final char SEP = '/';
 
-    private static final Gson GSON = new Gson();
+    private static final List<String> WORKER_COMMAND = Arrays.asList("python", PLOTLY_SCRIPT, "--daemon");
+    private static PlotWorker worker; // shared by all plotters, created by the first plot
+
+    private int significantDigits = 17; // of numbers in plot files
+    private boolean binary = false; // arrays are written as base64 doubles
 
+    /**
+     * Sets number of significant digits of numbers in plot files, see PlotWriter.significantDigits(int).
+     * @param significantDigits the int number of digits from 1 to 17, 17 by default
+     * @return Plotter this instance
+     */
+    public Plotter significantDigits(int significantDigits) {
+        this.significantDigits = PlotWriter.checkSignificantDigits(significantDigits);
+        return this;
+    }
 
-    public void plot(Plot plot) {
+    /**
+     * Sets binary encoding of arrays in plot files, see PlotWriter.binary(boolean).
+     * @param binary the boolean true for base64 encoded doubles, false by default
+     * @return Plotter this instance
+     */
+    public Plotter binary(boolean binary) {
+        this.binary = binary;
+        return this;
+    }
+
+
+    /**
+     * Enqueues plot and passes it to the plot worker.
+     * @param plot the Plot
+     * @return CompletableFuture the future completed when the plot is written, exceptionally if it fails
+     */
+    public CompletableFuture<Void> plot(Plot plot) {
         // checks if plot contains data
         if (!plot.isReady()) throw new IllegalArgumentException("Plot doesn't contains all necessary data");
 
         // make sure dirs exists
         checkDirs();
 
-        // enqueue plot
-        File queuedPlot = new File(DIR_QUEUE + SEP + String.valueOf(System.currentTimeMillis()));
-        BufferedWriter w = null;
-
         try {
+            // enqueue plot, unique name as many plots may be queued in the same millisecond
+            File queuedPlot = File.createTempFile(String.valueOf(System.currentTimeMillis()), ".json", new File(DIR_QUEUE));
+
             // write data
-            w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(queuedPlot)));
-            w.write(GSON.toJson(plot));
-            w.close();
+            new PlotWriter().significantDigits(significantDigits).binary(binary).write(plot, queuedPlot.toPath());
 
-            try {
-                // exec plotly
-                Runtime.getRuntime().exec("python " +  PLOTLY_SCRIPT + " " + queuedPlot.getAbsolutePath());
-            } catch (IOException ex){
-                LOGGER.log(System.Logger.Level.ERROR, ex.getMessage());
-            }
+            // plot by plotly
+            CompletableFuture<Void> plotted = worker().submit(queuedPlot);
+            plotted.whenComplete((result, ex) -> {
+                if (ex != null) LOGGER.log(System.Logger.Level.ERROR, ex.getMessage());
+            });
+            return plotted;
 
         } catch (IOException ex) {
             LOGGER.log(System.Logger.Level.ERROR, ex.getMessage());
-        } finally {
-            try {w.close();} catch (Exception ex) {/*ignore*/}
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ex);
+            return failed;
+        }
+    }
+
+    private static synchronized PlotWorker worker() {
+        if (worker == null) {
+            PlotWorker created = new PlotWorker(WORKER_COMMAND);
+            Runtime.getRuntime().addShutdownHook(new Thread(created::close, "plot-worker-shutdown"));
+            worker = created;
+        }
+        return worker;
+    }
+
+    /**
+     * Waits until all queued plots are plotted and stops the plot worker,
+     * the next plot starts a new one. Called automatically when JVM exits.
+     */
+    public static synchronized void shutdown() {
+        if (worker != null) {
+            worker.close();
+            worker = null;
         }
     }
 
@@ -0,0 +1,265 @@
+package visualization.model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Reduces number of points of a trace to a target count, so the plot keeps its shape but is small enough to draw.
+ *
+ * - LTTB (Largest-Triangle-Three-Buckets) splits points to target - 2 buckets of equal count and keeps the first
+ *   and the last point and from every bucket the point forming the largest triangle with the point kept from
+ *   the previous bucket and the average of the next bucket, so peaks and turns are kept.
+ * - MIN_MAX splits x range to target / 2 columns of equal width, e.g. pixel columns, and keeps the first
+ *   and the last point and the points with min and max y of every column, so no peak is lost.
+ *
+ * Both modes expect points sorted by x, unsorted traces are not decimated.
+ * Traces longer than CHUNK_SIZE are decimated in parallel, chunk by chunk. Chunks depend only on the number
+ * of points, so the result is the same regardless of parallelism. LTTB keeps the first and the last
+ * point of every chunk and splits target points between chunks in proportion to their size, so no more than
+ * target points are kept in total. If a chunk would get less than 3 points, the trace is decimated as a whole.
+ */
+public class Decimation {
+
+    private static System.Logger LOGGER = System.getLogger(Decimation.class.getName());
+
+    static final int CHUNK_SIZE = 1 << 20; // points decimated by one task
+
+    public enum Mode {NONE, LTTB, MIN_MAX}
+
+    private static final Decimation NONE = new Decimation(Mode.NONE, Integer.MAX_VALUE);
+
+    private final Mode mode;
+    private final int targetPoints;
+
+    private Decimation(Mode mode, int targetPoints) {
+        this.mode = mode;
+        this.targetPoints = targetPoints;
+    }
+
+    /**
+     * @return Decimation which keeps all points
+     */
+    public static Decimation none() {
+        return NONE;
+    }
+
+    /**
+     * @param targetPoints the int max number of kept points, at least 3
+     * @return Decimation by Largest-Triangle-Three-Buckets
+     */
+    public static Decimation lttb(int targetPoints) {
+        if (targetPoints < 3) throw new IllegalArgumentException("Target points have to be at least 3.");
+        return new Decimation(Mode.LTTB, targetPoints);
+    }
+
+    /**
+     * @param targetPoints the int max number of kept points, at least 4, i.e. two per column and the first and last point
+     * @return Decimation by min and max of columns
+     */
+    public static Decimation minMax(int targetPoints) {
+        if (targetPoints < 4) throw new IllegalArgumentException("Target points have to be at least 4.");
+        return new Decimation(Mode.MIN_MAX, targetPoints);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public int targetPoints() {
+        return targetPoints;
+    }
+
+    /**
+     * Decimates the trace, arrays of the trace are not changed.
+     * @param trace the Scatter with points sorted by x
+     * @return Scatter the decimated trace, the same trace if it has no more than target points or isn't sorted
+     */
+    public Scatter apply(Scatter trace) {
+        double[] x = trace.x(), y = trace.y();
+        if (mode == Mode.NONE || x.length <= targetPoints) return trace;
+        if (!isSorted(x)) {
+            LOGGER.log(System.Logger.Level.WARNING, "Trace " + trace.name() + " isn't sorted by x, it is not decimated.");
+            return trace;
+        }
+
+        int[] kept = mode == Mode.LTTB ? lttb(x, y) : minMax(x, y);
+        double[] keptX = new double[kept.length], keptY = new double[kept.length];
+        for (int i = 0; i < kept.length; ++i) {
+            keptX[i] = x[kept[i]];
+            keptY[i] = y[kept[i]];
+        }
+        return new Scatter(trace.name(), keptX, keptY);
+    }
+
+    private static boolean isSorted(double[] x) {
+        for (int i = 1; i < x.length; ++i)
+            if (!(x[i - 1] <= x[i])) return false;
+        return true;
+    }
+
+    /**
+     * @return int[] the indices of kept points in increasing order
+     */
+    private int[] lttb(double[] x, double[] y) {
+        int n = x.length;
+        int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        // targets of chunks are differences of rounded cumulative targets, so they sum to targetPoints
+        int[] target = new int[chunks];
+        for (int c = 0; c < chunks; ++c) {
+            long from = (long) c * CHUNK_SIZE, to = Math.min(n, from + CHUNK_SIZE);
+            target[c] = (int) (targetPoints * to / n - targetPoints * from / n);
+            if (target[c] < 3) return lttb(x, y, 0, n, targetPoints);
+        }
+
+        int[][] kept = new int[chunks][];
+        forEachChunk(chunks, c -> {
+            int from = c * CHUNK_SIZE, to = Math.min(n, from + CHUNK_SIZE);
+            kept[c] = lttb(x, y, from, to, target[c]);
+        });
+        return concat(kept);
+    }
+
+    /**
+     * Decimates points from..to-1 to target points by Largest-Triangle-Three-Buckets.
+     */
+    private static int[] lttb(double[] x, double[] y, int from, int to, int target) {
+        int length = to - from;
+        if (length <= target) return IntStream.range(from, to).toArray();
+
+        int[] kept = new int[target];
+        kept[0] = from;
+        double bucketSize = (double) (length - 2) / (target - 2);
+        int a = from; // point kept from the previous bucket
+
+        for (int i = 0; i < target - 2; ++i) {
+            int start = from + 1 + (int) (i * bucketSize);
+            int end = from + 1 + (int) ((i + 1) * bucketSize);
+
+            // average of the next bucket, the last point for the last bucket
+            int nextEnd = Math.min(from + 1 + (int) ((i + 2) * bucketSize), to);
+            double averageX = 0, averageY = 0;
+            for (int j = end; j < nextEnd; ++j) {
+                averageX += x[j];
+                averageY += y[j];
+            }
+            averageX /= nextEnd - end;
+            averageY /= nextEnd - end;
+
+            // point with the largest triangle, NaN areas are never the largest
+            int best = start;
+            double maxArea = -1;
+            for (int j = start; j < end; ++j) {
+                double area = Math.abs((x[a] - averageX) * (y[j] - y[a]) - (x[a] - x[j]) * (averageY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    best = j;
+                }
+            }
+            kept[i + 1] = a = best;
+        }
+        kept[target - 1] = to - 1;
+        return kept;
+    }
+
+    /**
+     * @return int[] the indices of kept points in increasing order
+     */
+    private int[] minMax(double[] x, double[] y) {
+        int n = x.length;
+        int columns = (targetPoints - 2) / 2;
+        double min = x[0], width = (x[n - 1] - x[0]) / columns;
+        if (!(width > 0)) columns = 1;
+
+        // chunks of whole columns with about CHUNK_SIZE points
+        int chunks = Math.min(columns, (n + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        int[] firstColumn = new int[chunks + 1];
+        for (int c = 0; c <= chunks; ++c)
+            firstColumn[c] = (int) ((long) columns * c / chunks);
+
+        final int lastColumn = columns - 1;
+        int[][] kept = new int[chunks + 2][];
+        kept[0] = new int[]{0};
+        kept[chunks + 1] = new int[]{n - 1};
+
+        forEachChunk(chunks, c -> {
+            int from = firstIndex(x, min, width, lastColumn, firstColumn[c]);
+            int to = firstIndex(x, min, width, lastColumn, firstColumn[c + 1]);
+            kept[c + 1] = minMax(x, y, from, to, min, width, lastColumn, firstColumn[c + 1] - firstColumn[c]);
+        });
+
+        // the first and the last point may also be min or max of their columns
+        int[] all = concat(kept);
+        int size = 0;
+        for (int i = 0; i < all.length; ++i)
+            if (size == 0 || all[i] != all[size - 1]) all[size++] = all[i];
+        return Arrays.copyOf(all, size);
+    }
+
+    /**
+     * Keeps points with min and max y of every column of points from..to-1, in order of their indices.
+     * @param columns the int number of columns of the points
+     */
+    private static int[] minMax(double[] x, double[] y, int from, int to, double min, double width, int lastColumn, int columns) {
+        int[] kept = new int[2 * columns];
+        int size = 0;
+
+        for (int i = from; i < to; ) {
+            int column = column(x[i], min, width, lastColumn);
+            int low = i, high = i;
+            for (++i; i < to && column(x[i], min, width, lastColumn) == column; ++i) {
+                if (y[i] < y[low]) low = i;
+                if (y[i] > y[high]) high = i;
+            }
+
+            kept[size++] = Math.min(low, high);
+            if (low != high) kept[size++] = Math.max(low, high);
+        }
+        return Arrays.copyOf(kept, size);
+    }
+
+    private static int column(double x, double min, double width, int lastColumn) {
+        return lastColumn == 0 ? 0 : Math.min(lastColumn, (int) ((x - min) / width));
+    }
+
+    /**
+     * @return int the first index of a point in the given column or after it, x.length if there is none
+     */
+    private static int firstIndex(double[] x, double min, double width, int lastColumn, int column) {
+        int low = 0, high = x.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (column(x[middle], min, width, lastColumn) < column) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    private static void forEachChunk(int chunks, IntConsumer action) {
+        IntStream range = IntStream.range(0, chunks);
+        if (chunks > 1) range = range.parallel();
+        range.forEach(action);
+    }
+
+    private static int[] concat(int[][] parts) {
+        int length = 0;
+        for (int[] part : parts)
+            length += part.length;
+
+        int[] all = new int[length];
+        int offset = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, all, offset, part.length);
+            offset += part.length;
+        }
+        return all;
+    }
+
+    @Override
+    public String toString() {
+        return "Decimation{" +
+                "mode=" + mode +
+                ", targetPoints=" + targetPoints + "}";
+    }
+}
@@ -1,34 +1,80 @@
 package visualization.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
 /**
- *
+ * Traces are decimated when they are added, see Decimation, by default all points are kept.
+ * Added traces are kept as well, so changed decimation is applied to all of them again.
  * @author Ondrej Kratochvil
  */
 public class Figure {
 
-    private List<Scatter> data;
+    private List<Scatter> data; // decimated traces, which are plotted
     private Layout layout;
 
+    private transient List<Scatter> added; // traces as they were added
+    private transient Decimation decimation = Decimation.none();
+
 
     public Figure(Layout layout) {
         this.layout = layout;
         data = new LinkedList<>();
+        added = new LinkedList<>();
     }
 
     public Figure add(Scatter trace) {
-        data.add(trace);
+        added.add(trace);
+        data.add(decimation.apply(trace));
         return this;
     }
 
     public Figure add(List<Scatter> traces) {
-        data.addAll(traces);
+        for (Scatter trace : traces)
+            add(trace);
+        return this;
+    }
+
+    /**
+     * Sets decimation of traces and applies it to all already added traces.
+     * @param decimation the Decimation, e.g. Decimation.lttb(2000)
+     * @return Figure this instance
+     */
+    public Figure decimation(Decimation decimation) {
+        this.decimation = decimation;
+        data.clear();
+        for (Scatter trace : added)
+            data.add(decimation.apply(trace));
         return this;
     }
 
+    /**
+     * Decimates added traces by given decimation, the figure and its own decimation are not changed.
+     * @param decimation the Decimation
+     * @return List<Scatter> the decimated traces
+     */
+    public List<Scatter> traces(Decimation decimation) {
+        List<Scatter> traces = new ArrayList<>(added.size());
+        for (Scatter trace : added)
+            traces.add(decimation.apply(trace));
+        return traces;
+    }
+
+    public Decimation decimation() {
+        return decimation;
+    }
+
     public boolean containsData() {
         return data.size() != 0;
     }
+
+    public List<Scatter> traces() {
+        return Collections.unmodifiableList(data);
+    }
+
+    public Layout layout() {
+        return layout;
+    }
 }
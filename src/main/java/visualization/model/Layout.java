@@ -11,4 +11,8 @@ public class Layout {
     public Layout(String title) {
         this.title = title;
     }
+
+    public String title() {
+        return title;
+    }
 }
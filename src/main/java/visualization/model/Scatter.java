@@ -19,4 +19,20 @@ public class Scatter {
         this.y = y;
         this.visible = true;
     }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public double[] x() {
+        return x;
+    }
+
+    public double[] y() {
+        return y;
+    }
 }
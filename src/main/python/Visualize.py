@@ -3,25 +3,73 @@ import sys
 
 sys.path.append('/usr/local/lib/python3.5/dist-packages')
 
+import array
+import base64
 import json
 import os
 import plotly.offline as plotly
 
+try:
+    import numpy
+except ImportError:
+    numpy = None
 
-def process():
-    if len(sys.argv) == 2:
-        plot_data_file = str(sys.argv[1])
-    else:
-        sys.exit('expecting one arg path with data to be plotted')
 
-    with open(plot_data_file, "r") as f:
-        plot_data = json.loads(f.readline())
+def decode(values):
+    # arrays written in binary by PlotWriter, {"dtype": "f8", "bdata": base64 of little-endian doubles}
+    if not isinstance(values, dict) or "bdata" not in values:
+        return values
+
+    data = base64.b64decode(values["bdata"])
+    if numpy is not None:
+        return numpy.frombuffer(data, dtype="<f8")
+
+    doubles = array.array("d", data)
+    if sys.byteorder == "big":
+        doubles.byteswap()
+    return doubles.tolist()
 
-    f.close()
+
+def plot(plot_data_file):
+    with open(plot_data_file, "r", encoding="utf-8") as f:
+        plot_data = json.load(f)
+
+    for trace in plot_data["figure"]["data"]:
+        trace["x"] = decode(trace["x"])
+        trace["y"] = decode(trace["y"])
 
     plotly.plot(plot_data["figure"], filename=plot_data["filename"], auto_open=plot_data["auto_open"])
 
     os.remove(plot_data_file)
+
+
+def daemon():
+    # reads paths of plot data files from stdin, one per line, until stdin is closed,
+    # every path is answered by line "ok" or "error <message>" on stdout
+    responses = sys.stdout
+    sys.stdout = sys.stderr  # anything printed while plotting must not mix with responses
+
+    for line in sys.stdin:
+        plot_data_file = line.strip()
+        if not plot_data_file:
+            continue
+
+        try:
+            plot(plot_data_file)
+            responses.write("ok\n")
+        except Exception as e:
+            responses.write("error " + " ".join(str(e).split()) + "\n")
+        responses.flush()
+
+
+def process():
+    if len(sys.argv) != 2:
+        sys.exit('expecting one arg path with data to be plotted, or --daemon')
+
+    if sys.argv[1] == "--daemon":
+        daemon()
+    else:
+        plot(str(sys.argv[1]))
     sys.exit(0)
 
 
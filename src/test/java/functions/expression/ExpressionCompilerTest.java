@@ -0,0 +1,108 @@
+package functions.expression;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static functions.expression.Expression.constant;
+import static functions.expression.Expression.x;
+import static org.junit.Assert.assertEquals;
+
+public class ExpressionCompilerTest {
+
+    private static final double[] POINTS = {
+            0, -0.0, 1, -1, 0.5, -0.5, 2, -3.75, Math.PI, 1e-300, -1e-300, 1e300, -1e300,
+            Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+    /**
+     * Asserts that compiled expression returns the same bits as the interpreted one, scalar and in bulk.
+     */
+    private static void assertSameValues(Expression expression) {
+        CompiledExpression compiled = expression.compile();
+        assertEquals(expression, compiled.expression());
+
+        for (double x : POINTS)
+            assertSame(expression + " at " + x, expression.f(x), compiled.f(x));
+
+        // bulk loop writes only the given range
+        int offset = 3;
+        double[] result = new double[POINTS.length + 2 * offset];
+        Arrays.fill(result, 42);
+        double[] x = new double[result.length];
+        System.arraycopy(POINTS, 0, x, offset, POINTS.length);
+
+        compiled.f(x, offset, POINTS.length, result);
+        for (int i = 0; i < result.length; ++i) {
+            if (i < offset || i >= offset + POINTS.length) assertSame(expression + " outside of range", 42, result[i]);
+            else assertSame(expression + " in bulk at " + x[i], expression.f(x[i]), result[i]);
+        }
+    }
+
+    private static void assertSame(String message, double expected, double actual) {
+        assertEquals(message, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+    }
+
+    @Test
+    public void everyOperation() {
+        Expression[] expressions = {
+                x(), constant(2.5), constant(-0.0), constant(Double.NaN),
+                x().plus(1), x().minus(x().times(3)), x().times(x()), x().divide(7), constant(1).divide(x()),
+                x().pow(2), x().pow(0.5), constant(2).pow(x()), x().pow(x()), x().negate(),
+                x().sqrt(), x().abs(), x().sin(), x().cos(), x().tan(), x().exp(), x().log()};
+
+        for (Expression expression : expressions)
+            assertSameValues(expression);
+    }
+
+    @Test
+    public void simplifiedAndDerivedExpressions() {
+        Expression expression = x().times(3).sin().plus(x().pow(2)).divide(x().exp().plus(1));
+        assertSameValues(expression);
+        assertSameValues(expression.simplify());
+        assertSameValues(expression.derivative());
+        assertSameValues(expression.derivative().derivative());
+    }
+
+    @Test
+    public void deepExpression() {
+        // deep trees need a large operand stack
+        Expression left = x(), right = x();
+        for (int i = 1; i <= 100; ++i) {
+            left = constant(i).plus(left.times(0.5));
+            right = right.times(constant(i).minus(x().divide(i)));
+        }
+        assertSameValues(left);
+        assertSameValues(right);
+        assertSameValues(left.minus(right));
+    }
+
+    @Test
+    public void randomExpressions() {
+        Random random = new Random(1);
+        for (int i = 0; i < 500; ++i)
+            assertSameValues(random(random, 6));
+    }
+
+    private static Expression random(Random random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0)
+            return random.nextBoolean() ? x() : constant(random.nextGaussian() * 10);
+
+        Expression u = random(random, depth - 1);
+        switch (random.nextInt(13)) {
+            case 0: return u.plus(random(random, depth - 1));
+            case 1: return u.minus(random(random, depth - 1));
+            case 2: return u.times(random(random, depth - 1));
+            case 3: return u.divide(random(random, depth - 1));
+            case 4: return u.pow(random(random, depth - 1));
+            case 5: return u.negate();
+            case 6: return u.sqrt();
+            case 7: return u.abs();
+            case 8: return u.sin();
+            case 9: return u.cos();
+            case 10: return u.tan();
+            case 11: return u.exp();
+            default: return u.log();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package polynomial_curve_fitting;
+
+import org.junit.Test;
+import set.SplitStrategy;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class LeastSquaresPCFTest {
+
+    private static final int N = 2000;
+    private static final double[] SCALES = {1.0 / 1024, 1.0 / 128, 1, 8, 1 << 20}; // exact powers of two
+
+    private final double[] u = new double[N], t = new double[N];
+
+    public LeastSquaresPCFTest() {
+        Random random = new Random(7);
+        for (int n = 0; n < N; ++n) {
+            u[n] = random.nextDouble();
+            t[n] = Math.sin(2 * Math.PI * u[n]) + 0.01 * random.nextGaussian();
+        }
+    }
+
+    private double[] scaled(double scale) {
+        double[] x = new double[N];
+        for (int n = 0; n < N; ++n)
+            x[n] = scale * u[n];
+        return x;
+    }
+
+    @Test
+    public void degreeDoesNotDependOnPowerOfTwoScaleOfX() {
+        LeastSquaresPCF reference = new LeastSquaresPCF(u, t);
+        reference.split(SplitStrategy.shuffle(1));
+        int degree = reference.degree();
+        assertEquals(9, degree);
+
+        for (double scale : SCALES) {
+            LeastSquaresPCF fitting = new LeastSquaresPCF(scaled(scale), t);
+            fitting.split(SplitStrategy.shuffle(1));
+            assertEquals("scale " + scale, degree, fitting.degree());
+            assertArrayEquals("scale " + scale, reference.getDegreeToRMS(), fitting.getDegreeToRMS(), 1e-9);
+        }
+    }
+
+    @Test
+    public void streamingDegreeDoesNotDependOnPowerOfTwoScaleOfX() {
+        int degree = new StreamingPCF().accept(u, t).degree();
+
+        for (double scale : SCALES)
+            assertEquals("scale " + scale, degree, new StreamingPCF().accept(scaled(scale), t).degree());
+    }
+}
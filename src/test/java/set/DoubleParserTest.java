@@ -0,0 +1,97 @@
+package set;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class DoubleParserTest {
+
+    private static final int RANDOM_INPUTS = 100000; // per generator
+
+    /**
+     * Asserts that DoubleParser returns the same bits as Double.parseDouble() or fails the same way.
+     */
+    private static void assertParity(String input) {
+        byte[] bytes = (" " + input + " ").getBytes(StandardCharsets.ISO_8859_1);
+
+        double expected;
+        try {
+            expected = Double.parseDouble(input);
+        } catch (NumberFormatException e) {
+            try {
+                DoubleParser.parse(bytes, 1, bytes.length - 1);
+            } catch (NumberFormatException expectedException) {
+                return;
+            }
+            fail("Input \"" + input + "\" isn't a number, but it is parsed.");
+            return;
+        }
+
+        double actual = DoubleParser.parse(bytes, 1, bytes.length - 1);
+        assertEquals("Input \"" + input + "\"", Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+    }
+
+    @Test
+    public void specialCases() {
+        String[] inputs = {
+                "0", "-0", "+0", "0.0", "-0.0", "0e10", "00000", ".5", "5.", "-.5e-1", "+1", "1E5", "1e+5",
+                "1", "9007199254740992", "9007199254740993", "1e22", "1e23", "1e-22", "1e-23",
+                "1.7976931348623157e308", "1.7976931348623158e308", "1.7976931348623159e308", "1e309", "-1e309",
+                "2.2250738585072014e-308", "2.2250738585072011e-308", "4.9e-324", "2.4703282292062327e-324",
+                "2.4703282292062328e-324", "1e-400", "-1e-400",
+                "1234567890123456789", "12345678901234567890", "0.12345678901234567890123", "9999999999999999999e-20",
+                "18446744073709551615", "18446744073709551616", "0.000000000000000000000000001234567890123456789",
+                "NaN", "-NaN", "Infinity", "-Infinity", "+Infinity",
+                "0x1.8p1", "-0x1p-1074", "1d", "1.5D", "2f", "1e100000", "1e-100000",
+                "", "-", "+", ".", "e5", "1e", "1e+", "1.2.3", "1-2", "--1", "abc", "1 2", "0x"};
+
+        for (String input : inputs)
+            assertParity(input);
+    }
+
+    @Test
+    public void randomDoubles() {
+        Random random = new Random(1);
+        for (int i = 0; i < RANDOM_INPUTS; ++i) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            assertParity(Double.toString(value));
+            assertParity(String.format("%.17e", value));
+        }
+    }
+
+    @Test
+    public void randomSubnormals() {
+        Random random = new Random(2);
+        for (int i = 0; i < RANDOM_INPUTS; ++i) {
+            double value = Double.longBitsToDouble(random.nextLong() & 0x000FFFFFFFFFFFFFL);
+            assertParity(Double.toString(value));
+            assertParity(String.format("%.20e", value));
+        }
+    }
+
+    @Test
+    public void randomDigits() {
+        Random random = new Random(3);
+        StringBuilder input = new StringBuilder();
+
+        for (int i = 0; i < RANDOM_INPUTS; ++i) {
+            input.setLength(0);
+            if (random.nextBoolean()) input.append('-');
+
+            // 1 to 25 digits, so mantissas of more than 19 digits fall back to Double.parseDouble()
+            int digits = 1 + random.nextInt(25);
+            int point = random.nextInt(digits + 1);
+            for (int d = 0; d < digits; ++d) {
+                if (d == point) input.append('.');
+                input.append((char) ('0' + random.nextInt(10)));
+            }
+            input.append('e').append(random.nextInt(700) - 350);
+
+            assertParity(input.toString());
+        }
+    }
+}